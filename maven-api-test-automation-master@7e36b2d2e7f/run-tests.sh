@@ -21,6 +21,9 @@ PROFILE_UNIT_TESTS=${PROFILE_UNIT_TESTS:-unit-tests}
 PROFILE_GATLING_VERIFY=${PROFILE_GATLING_VERIFY:-gatling-verify}
 RESULTS_FOLDER=${RESULTS_FOLDER:-results}
 CLASSPATH_FOLDER=${CLASSPATH_FOLDER:-./src/test/resources}
+DAEMON_HOST=${DAEMON_HOST:-127.0.0.1}
+DAEMON_PORT=${DAEMON_PORT:-7357}
+DAEMON_LOG_FILE=${DAEMON_LOG_FILE:-target/runner-daemon.log}
 
 # Do not include environment within latest link
 RESULTS_LATEST_LINK="${RESULTS_FOLDER}/tests-latest.txt"
@@ -57,6 +60,9 @@ usage: $0 [option] ...
     -t value  | --tag value            Tag to execute (can be specified 1 or more times)
 
     --help                             Show this help and exit
+    --daemon                           Run Karate tests within a running runner daemon, instead of a new Maven JVM
+    --daemon-start                     Start the runner daemon in the background (port ${DAEMON_PORT}) and exit
+    --daemon-stop                      Stop the runner daemon and exit
     --do-not-check-env                 Do not check environment value - pass through as is
     --do-not-check-features            Do not check feature folders exist - pass through as is
     --do-not-check-tags                Do not check tags for leading '@' - pass through as is
@@ -460,6 +466,51 @@ getGitDirty() {
     fi
 }
 
+#
+# daemonRequest - Send a request to the runner daemon (see RunnerDaemon.java), displaying the output sent back
+#
+# Arguments:
+#       $1          Command - one of RUN, PING or STOP
+#       $2 ...      System properties (name=value) to be used by the run
+#
+# Returns the exit code sent back by the daemon, or 3 if the daemon is not running
+#
+daemonRequest() {
+    if [ "$#" -lt 1 ]; then
+        echo "usage: daemonRequest command [name=value] ..." >&2
+        return 1
+    fi
+
+    local DAEMON_FD
+    if [ -n "${ZSH_VERSION:-}" ]; then
+        zmodload zsh/net/tcp || return 3
+        ztcp "${DAEMON_HOST}" "${DAEMON_PORT}" 2> /dev/null || return 3
+        DAEMON_FD=${REPLY}
+    else
+        # NOTE: /dev/tcp is provided by bash (4.1 or later for {DAEMON_FD})
+        { exec {DAEMON_FD}<> "/dev/tcp/${DAEMON_HOST}/${DAEMON_PORT}"; } 2> /dev/null || return 3
+    fi
+
+    printf '%s\n' "$@" '' >&"${DAEMON_FD}"
+
+    local DAEMON_EXIT_CODE=3
+    local LINE
+    while IFS='' read -r -u "${DAEMON_FD}" LINE; do
+        if [[ "${LINE}" =~ ^EXIT\ [0-9]+$ ]]; then
+            DAEMON_EXIT_CODE=${LINE#EXIT }
+        else
+            echo "${LINE}"
+        fi
+    done
+
+    if [ -n "${ZSH_VERSION:-}" ]; then
+        ztcp -c "${DAEMON_FD}"
+    else
+        exec {DAEMON_FD}>&-
+    fi
+    return "${DAEMON_EXIT_CODE}"
+}
+
 THIS_FOLDER="$(cd "$(dirname "${0}")" && pwd)"
 CLEAN=1
 TAGS=()
@@ -484,6 +535,9 @@ LIST_TEST_MODES=0
 GIT_PROPERTIES=${GIT_PROPERTIES:-1}
 HOST_USER_PROPERTIES=${HOST_USER_PROPERTIES:-1}
 HTML_REPORT=${HTML_REPORT:-1}
+DAEMON=${DAEMON:-0}
+DAEMON_START=0
+DAEMON_STOP=0
 
 while [ "$#" -gt 0 ] && [ -n "${1}" ]; do
     case "${1}" in
@@ -599,6 +653,18 @@ while [ "$#" -gt 0 ] && [ -n "${1}" ]; do
             CHECK_ENV=0
             shift
             ;;
+        --daemon)
+            DAEMON=1
+            shift
+            ;;
+        --daemon-start)
+            DAEMON_START=1
+            shift
+            ;;
+        --daemon-stop)
+            DAEMON_STOP=1
+            shift
+            ;;
         --do-not-execute)
             EXECUTE=0
             shift
@@ -668,6 +734,39 @@ cd "${THIS_FOLDER}" || {
     exit 1
 }
 
+if [ "${DAEMON_STOP}" -ne 0 ]; then
+    if daemonRequest STOP; then
+        echo "Runner daemon on port ${DAEMON_PORT} stopped"
+    else
+        echo "Runner daemon is not running on port ${DAEMON_PORT}"
+    fi
+    exit 0
+fi
+
+if [ "${DAEMON_START}" -ne 0 ]; then
+    if daemonRequest PING; then
+        echo "Runner daemon is already running on port ${DAEMON_PORT}"
+        exit 0
+    fi
+    mkdir -p "$(dirname "${DAEMON_LOG_FILE}")"
+    COMMAND=(mvn --file "${POM_FILE}" test-compile exec:java --define exec.classpathScope=test --define exec.mainClass=runner.RunnerDaemon --define "exec.args=${DAEMON_PORT}")
+    echo "Starting runner daemon (output written to '${DAEMON_LOG_FILE}')"
+    echo
+    echo "    $(quoteArgs "${COMMAND[@]}")"
+    nohup "${COMMAND[@]}" > "${DAEMON_LOG_FILE}" 2>&1 &
+    DAEMON_PID=$!
+    while ! daemonRequest PING; do
+        if ! kill -0 "${DAEMON_PID}" 2> /dev/null; then
+            echo "FAIL: Runner daemon failed to start - see '${DAEMON_LOG_FILE}'" >&2
+            exit 1
+        fi
+        sleep 1
+    done
+    echo
+    echo "Runner daemon listening on port ${DAEMON_PORT} - run tests using: $0 --daemon ..."
+    exit 0
+fi
+
 if [ "${REMOVE_RESULTS}" -ne 0 ]; then
     if [ -d "${RESULTS_FOLDER}"  ];  then
         echo "Removing results folder '${RESULTS_FOLDER}'"
@@ -857,6 +956,31 @@ if [ "$#" -gt 0 ]; then
     done
 fi
 
+if [ "${DAEMON}" -ne 0 ]; then
+    if [ "${TEST_MODE}" != "${TEST_MODE_KARATE}" ]; then
+        echo "FAIL: Only test mode '${TEST_MODE_KARATE}' can be run by the runner daemon" >&2
+        exit 1
+    fi
+    # Pass the system properties which would have been defined for Maven to the daemon, which runs the tests
+    DAEMON_PROPERTIES=()
+    NEXT_IS_PROPERTY=0
+    for ARG in "${COMMAND[@]}"; do
+        if [ "${NEXT_IS_PROPERTY}" -ne 0 ]; then
+            DAEMON_PROPERTIES+=("${ARG}")
+            NEXT_IS_PROPERTY=0
+        elif [ "${ARG}" == '--define' ]; then
+            NEXT_IS_PROPERTY=1
+        elif [[ "${ARG}" =~ ^-D.+ ]]; then
+            DAEMON_PROPERTIES+=("${ARG#-D}")
+        fi
+    done
+    COMMAND=(daemonRequest RUN "${DAEMON_PROPERTIES[@]}")
+    if [ "${EXECUTE}" -ne 0 ] && ! daemonRequest PING; then
+        echo "FAIL: Runner daemon is not running on port ${DAEMON_PORT} - start it using: $0 --daemon-start" >&2
+        exit 1
+    fi
+fi
+
 if [ "${EXECUTE}" -eq 0 ]; then
     echo
     echo "Command to be excecuted:"
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import utils.util.FakeData;
+import utils.util.FakeDataProvider;
+import utils.util.FakeDataRecords;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FakeData generation: individual values, a complete user record, and obtaining an instance per scenario
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FakeDataBenchmark {
+
+    private FakeData fakeData;
+
+    @Setup
+    public void setup() {
+        fakeData = new FakeData();
+    }
+
+    @Benchmark
+    public String fullName() {
+        return fakeData.name().fullName();
+    }
+
+    @Benchmark
+    public String fullAddress() {
+        return fakeData.address().fullAddress();
+    }
+
+    @Benchmark
+    public int random() {
+        return fakeData.random(1, 100);
+    }
+
+    @Benchmark
+    public String userRecord() {
+        return FakeDataRecords.userJson(fakeData);
+    }
+
+    /**
+     * Creating a new FakeData for every scenario, for comparison with providerGet()
+     */
+    @Benchmark
+    public FakeData newFakeData() {
+        return new FakeData();
+    }
+
+    @Benchmark
+    public FakeData providerGet() {
+        return FakeDataProvider.get();
+    }
+
+    @Benchmark
+    public FakeData providerForScenario() {
+        return FakeDataProvider.forScenario("benchmark.feature:Benchmark scenario");
+    }
+}
@@ -0,0 +1,50 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import runner.LogModifier;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LogModifier.header(), which Karate calls for every request and response header that is logged
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LogModifierBenchmark {
+
+    @Param({"basic", "bearer", "other"})
+    public String header;
+
+    private String name;
+    private String value;
+
+    @Setup
+    public void setup() {
+        switch (header) {
+            case "basic":
+                name = "Authorization";
+                value = "Basic dXNlcm5hbWU6cGFzc3dvcmQ=";
+                break;
+            case "bearer":
+                name = "authorization";
+                value = "Bearer eyJhbGciOiJIUzI1NiIsInR5cCI6IkpXVCJ9.eyJzdWIiOiIxMjM0NTY3ODkwIn0.signature";
+                break;
+            default:
+                name = "Content-Type";
+                value = "application/json; charset=UTF-8";
+        }
+    }
+
+    @Benchmark
+    public String header() {
+        return LogModifier.instance.header(name, value);
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.testrail.report.StreamingReportParser;
+import utils.testrail.report.model.JsonReport;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a single report file of several sizes into the utils.testrail.report.model classes, compared with the
+ * streaming parser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReportModelBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int scenarios;
+
+    private final Gson gson = new Gson();
+    private Path reportDir;
+    private Path report;
+
+    @Setup
+    public void setup() throws IOException {
+        // A single report file containing every scenario
+        reportDir = SyntheticReportDir.create(scenarios, scenarios);
+        report = reportDir.resolve("feature-1.json");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        SyntheticReportDir.delete(reportDir);
+    }
+
+    @Benchmark
+    public JsonReport[] model() throws IOException {
+        try (Reader reader = Files.newBufferedReader(report, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, JsonReport[].class);
+        }
+    }
+
+    @Benchmark
+    public void streaming(final Blackhole blackhole) throws IOException {
+        new StreamingReportParser().parse(report.toString(), (name, status, message) -> {
+            blackhole.consume(name);
+            blackhole.consume(status);
+            blackhole.consume(message.length());
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import utils.testrail.report.ReportProcessor;
+import utils.testrail.report.ScenarioResults;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReportProcessor.analyseReports() over synthetic report directories of several sizes, using the streaming parser or
+ * the Gson object model, with one thread or one per processor
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReportProcessorBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    public int scenarios;
+
+    @Param({"true", "false"})
+    public boolean streaming;
+
+    @Param({"1", "0"})
+    public int threads;
+
+    private Path reportDir;
+    private ReportProcessor processor;
+
+    @Setup
+    public void setup() throws IOException {
+        reportDir = SyntheticReportDir.create(scenarios, 40);
+        System.setProperty(ReportProcessor.STREAMING_PROPERTY, String.valueOf(streaming));
+        // 0 - one thread per available processor
+        System.setProperty(ReportProcessor.THREADS_PROPERTY,
+                String.valueOf(threads > 0 ? threads : Runtime.getRuntime().availableProcessors()));
+        processor = new ReportProcessor(reportDir.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        System.clearProperty(ReportProcessor.STREAMING_PROPERTY);
+        System.clearProperty(ReportProcessor.THREADS_PROPERTY);
+        SyntheticReportDir.delete(reportDir);
+    }
+
+    @Benchmark
+    public ScenarioResults analyseReports() {
+        return processor.analyseReports();
+    }
+}
@@ -0,0 +1,61 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import utils.util.ApiTestSettings;
+import utils.util.Support;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Support property parsing, compared with reading the resolved settings snapshot
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SupportBenchmark {
+
+    @Setup
+    public void setup() {
+        System.setProperty("apitest.threads", "8");
+        System.setProperty("apitest.configure.ssl", "false");
+        System.setProperty("apitest.tags", "@SMOKE&~@ignore&@POST");
+        Support.refreshSettings();
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.clearProperty("apitest.threads");
+        System.clearProperty("apitest.configure.ssl");
+        System.clearProperty("apitest.tags");
+        Support.refreshSettings();
+    }
+
+    @Benchmark
+    public int getIntProperty() {
+        return Support.getProperty("apitest.threads", 1);
+    }
+
+    @Benchmark
+    public boolean getBooleanProperty() {
+        return Support.getProperty("apitest.configure.ssl", true);
+    }
+
+    @Benchmark
+    public List<String> getPropertyList() {
+        return Support.getPropertyList("apitest.tags", null, "&");
+    }
+
+    @Benchmark
+    public int getSettingsThreads() {
+        final ApiTestSettings settings = Support.getSettings();
+        return settings.getThreads();
+    }
+}
@@ -0,0 +1,45 @@
+package benchmarks;
+
+import utils.testrail.standin.SyntheticReports;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * Temporary directory of synthetic Karate (Cucumber JSON) reports, used by the report benchmarks
+ */
+final class SyntheticReportDir {
+
+    private static final int STEPS_PER_SCENARIO = 8;
+    private static final double FAILURE_RATE = 0.1;
+
+    private SyntheticReportDir() {
+    }
+
+    /**
+     * Writes reports containing the given total number of scenarios
+     * @param scenarios Total number of scenarios
+     * @param scenariosPerFeature Number of scenarios per report file
+     * @return Directory containing the reports
+     */
+    static Path create(final int scenarios, final int scenariosPerFeature) throws IOException {
+        final Path dir = Files.createTempDirectory("jmh-reports");
+        final int perFeature = Math.min(scenarios, scenariosPerFeature);
+        final int features = (scenarios + perFeature - 1) / perFeature;
+        SyntheticReports.write(dir, features, perFeature, STEPS_PER_SCENARIO, FAILURE_RATE, 1000, 42);
+        return dir;
+    }
+
+    static void delete(final Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> children = Files.list(path)) {
+                for (Path child : (Iterable<Path>) children::iterator) {
+                    delete(child);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+}
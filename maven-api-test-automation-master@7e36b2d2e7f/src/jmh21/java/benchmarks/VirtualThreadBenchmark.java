@@ -0,0 +1,129 @@
+package benchmarks;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent scenarios which block on HTTP calls, run on a fixed pool of platform threads (as Karate's parallel runner
+ * does) compared with one virtual thread per scenario. Needs Java 21, so it is only compiled by the java21 profile.
+ *
+ * Each invocation runs one round of the given number of concurrent scenarios, each making a few requests to a local
+ * server which takes 50 ms to respond. The scenarios counter gives the scenarios completed per second, the gc profiler
+ * the allocation rate, and the peak number of platform threads (each with its own stack) is printed per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VirtualThreadBenchmark {
+
+    private static final int REQUESTS_PER_SCENARIO = 5;
+    private static final int RESPONSE_MILLISECONDS = 50;
+
+    @Param({"16", "128", "1024"})
+    public int scenarios;
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService executor;
+    private URL url;
+
+    /**
+     * Scenarios completed, reported per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long scenarios;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // The server handles each request on a virtual thread, so it is never the limit
+        serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(RESPONSE_MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            final byte[] body = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/").toURL();
+
+        executor = "virtual".equals(threads)
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(scenarios);
+        ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.println(threads + " " + scenarios + ": peak platform threads "
+                + ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        executor.shutdownNow();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    public long round(final Counters counters) throws Exception {
+        final List<Future<Long>> futures = new ArrayList<>(scenarios);
+        for (int i = 0; i < scenarios; i++) {
+            futures.add(executor.submit(this::scenario));
+        }
+        long bytes = 0;
+        for (final Future<Long> future : futures) {
+            bytes += future.get();
+        }
+        counters.scenarios += scenarios;
+        return bytes;
+    }
+
+    private long scenario() throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < REQUESTS_PER_SCENARIO; i++) {
+            final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            try (InputStream inputStream = connection.getInputStream()) {
+                bytes += inputStream.readAllBytes().length;
+            }
+        }
+        return bytes;
+    }
+}
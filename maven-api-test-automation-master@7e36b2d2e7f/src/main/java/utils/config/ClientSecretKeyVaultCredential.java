@@ -5,11 +5,32 @@ import com.microsoft.aad.adal4j.AuthenticationResult;
 import com.microsoft.aad.adal4j.ClientCredential;
 import com.microsoft.azure.keyvault.authentication.KeyVaultCredentials;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ClientSecretKeyVaultCredential extends KeyVaultCredentials {
+    /**
+     * Tokens are refreshed in the background this long before they expire
+     */
+    private static final long REFRESH_AHEAD_MILLISECONDS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * Tokens are not used within this long of their expiry, allowing for clock skew
+     */
+    private static final long EXPIRY_MARGIN_MILLISECONDS = TimeUnit.SECONDS.toMillis(30);
+
+    // Process-wide, so every credential (and KeyVaultClient) for the same client and resource shares a token
+    private static final Map<String, AuthenticationResult> tokens = new ConcurrentHashMap<>();
+    private static final Map<String, CompletableFuture<AuthenticationResult>> inFlight = new ConcurrentHashMap<>();
+    private static volatile ExecutorService executor;
+
     private final String clientId;
     private final String clientKey;
 
@@ -20,28 +41,92 @@ public class ClientSecretKeyVaultCredential extends KeyVaultCredentials {
 
     @Override
     public String doAuthenticate(String authorization, String resource, String scope) {
-        AuthenticationResult token = getAccessTokenFromClientCredentials(
-                authorization, resource, clientId, clientKey);
-        return token.getAccessToken();
+        try {
+            return authenticateAsync(authorization, resource).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Gets an access token without blocking. A cached token is returned while it is valid (refreshing it in the
+     * background as it nears expiry), and concurrent callers for the same resource share one token request.
+     * @param authorization Authority url
+     * @param resource Resource the token is for
+     * @return Access token
+     */
+    public CompletableFuture<String> authenticateAsync(String authorization, String resource) {
+        String key = authorization + "|" + resource + "|" + clientId;
+        AuthenticationResult token = tokens.get(key);
+        long remaining = token == null || token.getExpiresOnDate() == null
+                ? 0 : token.getExpiresOnDate().getTime() - System.currentTimeMillis();
+        if (remaining > EXPIRY_MARGIN_MILLISECONDS) {
+            if (remaining < REFRESH_AHEAD_MILLISECONDS) {
+                acquireToken(key, authorization, resource);
+            }
+            return CompletableFuture.completedFuture(token.getAccessToken());
+        }
+        return acquireToken(key, authorization, resource).thenApply(AuthenticationResult::getAccessToken);
+    }
+
+    private CompletableFuture<AuthenticationResult> acquireToken(String key, String authorization, String resource) {
+        CompletableFuture<AuthenticationResult> request = new CompletableFuture<>();
+        CompletableFuture<AuthenticationResult> existing = inFlight.putIfAbsent(key, request);
+        if (existing != null) {
+            return existing;
+        }
+        getExecutor().execute(() -> {
+            try {
+                AuthenticationResult result = requestToken(authorization, resource);
+                tokens.put(key, result);
+                inFlight.remove(key, request);
+                request.complete(result);
+            } catch (RuntimeException e) {
+                inFlight.remove(key, request);
+                request.completeExceptionally(e);
+            }
+        });
+        return request;
+    }
+
+    /**
+     * Requests a new token from Azure AD, on a thread of the shared executor
+     */
+    AuthenticationResult requestToken(String authorization, String resource) {
+        return getAccessTokenFromClientCredentials(authorization, resource, clientId, clientKey);
+    }
+
+    /**
+     * Shared by all credentials and created on first use. Daemon threads, so it never keeps the JVM alive.
+     */
+    private static ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (ClientSecretKeyVaultCredential.class) {
+                if (executor == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    executor = Executors.newCachedThreadPool(runnable -> {
+                        Thread thread = new Thread(runnable, "keyvault-auth-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+            }
+        }
+        return executor;
     }
 
     private static AuthenticationResult getAccessTokenFromClientCredentials(
             String authorization, String resource, String clientId, String clientKey) {
         AuthenticationContext context;
         AuthenticationResult result;
-        ExecutorService service = null;
         try {
-            service = Executors.newFixedThreadPool(1);
-            context = new AuthenticationContext(authorization, false, service);
+            context = new AuthenticationContext(authorization, false, getExecutor());
             ClientCredential credentials = new ClientCredential(clientId, clientKey);
             Future<AuthenticationResult> future = context.acquireToken(
                     resource, credentials, null);
             result = future.get();
         } catch (Exception e) {
             throw new RuntimeException(e);
-        } finally {
-            if (service != null)
-                service.shutdown();
         }
 
         if (result == null) {
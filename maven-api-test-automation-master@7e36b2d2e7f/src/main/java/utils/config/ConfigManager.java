@@ -1,7 +1,6 @@
 package utils.config;
 
 import com.microsoft.azure.keyvault.KeyVaultClient;
-import com.microsoft.azure.keyvault.models.SecretBundle;
 import org.apache.log4j.Logger;
 import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
 import org.jasypt.properties.EncryptableProperties;
@@ -37,11 +36,12 @@ public class ConfigManager {
         return properties;
     }
 
+    /**
+     * Loads properties whose ENC(...) values are decrypted on first use, so the Key Vault secret is only fetched if an
+     * encrypted value is read
+     */
     private Properties loadEncProperties(String file) throws IOException {
-        StandardPBEStringEncryptor encryption = new StandardPBEStringEncryptor();
-        SecretBundle clientSecretKeyVaultCredential = getKeyVaultSecretClient();
-        encryption.setPassword(clientSecretKeyVaultCredential.value());
-        Properties properties = new EncryptableProperties(encryption);
+        Properties properties = new LazyDecryptingProperties(this::getKeyVaultSecret);
         FileInputStream fileInputStream = new FileInputStream(file);
         properties.load(fileInputStream);
         return properties;
@@ -57,11 +57,28 @@ public class ConfigManager {
         return url.getPath();
     }
 
-    private SecretBundle getKeyVaultSecretClient() {
-        ClientSecretKeyVaultCredential clientSecretKeyVaultCredential = new ClientSecretKeyVaultCredential(
-                this.azureConfigProperties.getProperty(Constants.AZURE_KV_CLIENT_ID),
-                this.azureConfigProperties.getProperty(Constants.AZURE_KV_CLIENT_KEY));
-        KeyVaultClient keyVaultClient = new KeyVaultClient(clientSecretKeyVaultCredential);
-        return keyVaultClient.getSecret(this.azureConfigProperties.getProperty(Constants.AZURE_KV_URL), Constants.SECRET_NAME);
+    private String getKeyVaultSecret() {
+        String clientKey = this.azureConfigProperties.getProperty(Constants.AZURE_KV_CLIENT_KEY);
+        String vaultUrl = this.azureConfigProperties.getProperty(Constants.AZURE_KV_URL);
+        KeyVaultSecretCache secretCache = new KeyVaultSecretCache(getCacheTtl());
+        return secretCache.get(vaultUrl, Constants.SECRET_NAME, () -> {
+            ClientSecretKeyVaultCredential clientSecretKeyVaultCredential = new ClientSecretKeyVaultCredential(
+                    this.azureConfigProperties.getProperty(Constants.AZURE_KV_CLIENT_ID), clientKey);
+            KeyVaultClient keyVaultClient = new KeyVaultClient(clientSecretKeyVaultCredential);
+            return keyVaultClient.getSecret(vaultUrl, Constants.SECRET_NAME).value();
+        });
+    }
+
+    private long getCacheTtl() {
+        String ttl = this.azureConfigProperties.getProperty(Constants.AZURE_KV_CACHE_TTL);
+        if (ttl == null || ttl.trim().isEmpty()) {
+            return KeyVaultSecretCache.DEFAULT_TTL_SECONDS;
+        }
+        try {
+            return Long.parseLong(ttl.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid " + Constants.AZURE_KV_CACHE_TTL + " '" + ttl + "', using " + KeyVaultSecretCache.DEFAULT_TTL_SECONDS);
+            return KeyVaultSecretCache.DEFAULT_TTL_SECONDS;
+        }
     }
 }
@@ -0,0 +1,73 @@
+package utils.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide, in-memory cache of Key Vault secrets
+ *
+ * A secret is fetched from Key Vault at most once per time to live, however many times ConfigManager is created in the
+ * JVM. Secrets are never written to disk.
+ */
+public class KeyVaultSecretCache {
+    public static final long DEFAULT_TTL_SECONDS = 3600;
+
+    private static final Map<String, Entry> secrets = new ConcurrentHashMap<>();
+
+    private final long ttlMillis;
+    private final LongSupplier clock;
+
+    /**
+     * @param ttlSeconds Time to live of a cached secret (0 or less to fetch the secret every time)
+     */
+    public KeyVaultSecretCache(long ttlSeconds) {
+        this(ttlSeconds, System::currentTimeMillis);
+    }
+
+    KeyVaultSecretCache(long ttlSeconds, LongSupplier clock) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(Math.max(ttlSeconds, 0));
+        this.clock = clock;
+    }
+
+    /**
+     * Gets a secret from memory or, if it is not cached or has expired, from Key Vault
+     * @param vaultUrl Key Vault url
+     * @param secretName Name of the secret
+     * @param loader Fetches the secret from Key Vault
+     * @return Value of the secret
+     */
+    public String get(String vaultUrl, String secretName, Supplier<String> loader) {
+        if (ttlMillis == 0) {
+            return loader.get();
+        }
+        String key = vaultUrl + "|" + secretName;
+        // compute() also makes concurrent callers wait for a single fetch
+        return secrets.compute(key, (k, cached) -> {
+            long now = clock.getAsLong();
+            if (cached != null && now < cached.expires) {
+                return cached;
+            }
+            return new Entry(loader.get(), now + ttlMillis);
+        }).secret;
+    }
+
+    /**
+     * Discards every cached secret
+     */
+    public void invalidate() {
+        secrets.clear();
+    }
+
+    private static class Entry {
+        private final String secret;
+        private final long expires;
+
+        Entry(String secret, long expires) {
+            this.secret = secret;
+            this.expires = expires;
+        }
+    }
+}
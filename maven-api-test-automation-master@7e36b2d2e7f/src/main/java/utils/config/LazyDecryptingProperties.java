@@ -0,0 +1,74 @@
+package utils.config;
+
+import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
+import org.jasypt.properties.PropertyValueEncryptionUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Properties which decrypt Jasypt ENC(...) values on first access, at most once per value
+ *
+ * Unlike EncryptableProperties, which runs the PBE key derivation and decryption on every read, each decrypted value
+ * is kept until clearDecrypted() discards it. The password is only requested (e.g. from Key Vault) when an encrypted
+ * value is first read, so nothing is fetched if no encrypted value is ever used.
+ *
+ * Values are handed out as Strings (the TestRail client only accepts Strings), so a value which has been read stays
+ * in memory until it is garbage collected, whether or not it has been discarded here.
+ */
+public class LazyDecryptingProperties extends Properties {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Supplier<String> passwordSupplier;
+    private final transient Map<String, String> decrypted = new HashMap<>();
+    private transient StandardPBEStringEncryptor encryptor;
+
+    /**
+     * @param passwordSupplier Supplies the Jasypt password, called when an encrypted value is first read
+     */
+    public LazyDecryptingProperties(Supplier<String> passwordSupplier) {
+        this.passwordSupplier = passwordSupplier;
+    }
+
+    @Override
+    public String getProperty(String key) {
+        String value = super.getProperty(key);
+        if (value == null || !PropertyValueEncryptionUtils.isEncryptedValue(value)) {
+            return value;
+        }
+        synchronized (decrypted) {
+            return decrypted.computeIfAbsent(key, k -> PropertyValueEncryptionUtils.decrypt(value, getEncryptor()));
+        }
+    }
+
+    @Override
+    public synchronized Object put(Object key, Object value) {
+        Object previous = super.put(key, value);
+        if (decrypted != null) {
+            synchronized (decrypted) {
+                decrypted.remove(key);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Discards every decrypted value. Encrypted values are decrypted again if they are read later.
+     */
+    public void clearDecrypted() {
+        synchronized (decrypted) {
+            decrypted.clear();
+        }
+    }
+
+    private StandardPBEStringEncryptor getEncryptor() {
+        if (encryptor == null) {
+            StandardPBEStringEncryptor encryption = new StandardPBEStringEncryptor();
+            encryption.setPassword(passwordSupplier.get());
+            encryptor = encryption;
+        }
+        return encryptor;
+    }
+}
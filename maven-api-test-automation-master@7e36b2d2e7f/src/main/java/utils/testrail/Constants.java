@@ -15,8 +15,16 @@ public class Constants {
     public static final String TESTRAIL_CONFIG_FILE = "config.properties";
     public static final String AZURE_CONFIG_FILE = "azure.properties";
     public static final String UPDATE_TESTRAIL = "testrail.update";
+    public static final String BATCH_SIZE = "testrail.batch.size";
+    public static final String CACHE_TTL = "testrail.cache.ttl";
+    public static final String CACHE_FILE = "testrail.cache.file";
+    public static final String UPLOAD_THREADS = "testrail.upload.threads";
+    public static final String RATE_LIMIT = "testrail.rate.limit";
+    public static final String UPLOAD_RETRIES = "testrail.upload.retries";
+    public static final String OUTBOX_DIR = "testrail.outbox.dir";
     public static final String AZURE_KV_URL = "azure.kv.url";
     public static final String AZURE_KV_CLIENT_ID = "azure.kv.client.id";
     public static final String AZURE_KV_CLIENT_KEY = "azure.kv.client.key";
+    public static final String AZURE_KV_CACHE_TTL = "azure.kv.cache.ttl";
     public static final String SECRET_NAME = "mySuperSecret";
 }
\ No newline at end of file
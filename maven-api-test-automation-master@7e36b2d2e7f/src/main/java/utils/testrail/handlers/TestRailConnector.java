@@ -1,28 +1,56 @@
 package utils.testrail.handlers;
 
+import com.codepine.api.testrail.Request;
 import com.codepine.api.testrail.TestRail;
+import com.codepine.api.testrail.TestRailException;
 import com.codepine.api.testrail.model.*;
 import utils.testrail.exceptions.NoTestRailUrlException;
 import utils.testrail.exceptions.ProjectNotFoundException;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 public class TestRailConnector {
     TestRail testRail;
+    private final TestRailMetadataCache cache;
+    private final TestRailUploader uploader;
 
     public TestRailConnector(String testRailUrl, Credential credential) throws NoTestRailUrlException {
+        this(testRailUrl, credential, new TestRailMetadataCache(testRailUrl, TestRailMetadataCache.DEFAULT_TTL_SECONDS, null));
+    }
+
+    public TestRailConnector(String testRailUrl, Credential credential, TestRailMetadataCache cache) throws NoTestRailUrlException {
+        this(testRailUrl, credential, cache, null);
+    }
+
+    /**
+     * @param uploader Uploader used to make every request (rate limited, with retries), or null to call TestRail directly
+     */
+    public TestRailConnector(String testRailUrl, Credential credential, TestRailMetadataCache cache, TestRailUploader uploader) throws NoTestRailUrlException {
         if (testRailUrl == null) {
             throw new NoTestRailUrlException("There is no configured TestRail url!");
         }
         this.testRail = TestRail.builder(testRailUrl, credential.getUser(), credential.getPass()).build();
+        this.cache = cache;
+        this.uploader = uploader;
     }
 
     public Project getProject(String name) throws ProjectNotFoundException {
-        List<Project> projects = this.testRail.projects().list().execute();
+        Integer projectId = cache.getProjectId(name);
+        if (projectId != null) {
+            // Only the id is used by the other calls, so there is no need to fetch the project again
+            return new Project().setId(projectId).setName(name);
+        }
+        List<Project> projects = execute(this.testRail.projects().list());
         for (Project project : projects) {
             if (project.getName().equalsIgnoreCase(name)) {
+                cache.putProjectId(name, project.getId());
                 return project;
             }
         }
@@ -30,69 +58,165 @@ public class TestRailConnector {
     }
 
     public List<Case> getTestCases(Project project) {
-        return this.testRail.cases().list(project.getId(), getTestCaseField()).execute();
+        return execute(this.testRail.cases().list(project.getId(), getTestCaseField()));
     }
 
     public List<Run> getRuns(Project project) {
-        return this.testRail.runs().list(project.getId()).execute();
+        return execute(this.testRail.runs().list(project.getId()));
+    }
+
+    /**
+     * Finds a test run by name, using the cached run id when present rather than listing every run
+     * @return Test run, or null if there is no run with this name
+     */
+    public Run getRun(Project project, String testRunName) {
+        Integer runId = cache.getRunId(project.getId(), testRunName);
+        if (runId != null) {
+            try {
+                Run run = getTestRunById(runId);
+                if (run.getName().trim().equalsIgnoreCase(testRunName.trim())) {
+                    return run;
+                }
+            } catch (TestRailException e) {
+                // Deleted since it was cached - fall back to listing the runs
+            }
+            cache.invalidateRun(project.getId(), testRunName);
+        }
+        for (Run run : getRuns(project)) {
+            if (run.getName().trim().equalsIgnoreCase(testRunName.trim())) {
+                cache.putRunId(project.getId(), testRunName, run.getId());
+                return run;
+            }
+        }
+        return null;
     }
 
     public Case getTestCaseById(Project project, int testCaseId) {
-        return testRail.cases().get(testCaseId, getTestCaseField()).execute();
+        return execute(testRail.cases().get(testCaseId, getTestCaseField()));
     }
 
     public Run createTestRun(Project project, String testRunName) {
-        return testRail.runs().add(project.getId(), new Run().setName(testRunName).setIncludeAll(false)).execute();
+        return cacheRun(project, executeOnce(testRail.runs().add(project.getId(), new Run().setName(testRunName).setIncludeAll(false))));
+    }
+
+    public Run createTestRun(Project project, String testRunName, Collection<Integer> caseIds) {
+        return cacheRun(project, executeOnce(testRail.runs().add(project.getId(), new Run().setName(testRunName).setIncludeAll(false).setCaseIds(new ArrayList<>(caseIds)))));
     }
 
     public Run createTestRun(Project project, String testRunName, Integer milestoneId) {
-        return testRail.runs().add(project.getId(), new Run().setName(testRunName).setMilestoneId(milestoneId).setIncludeAll(false)).execute();
+        return cacheRun(project, executeOnce(testRail.runs().add(project.getId(), new Run().setName(testRunName).setMilestoneId(milestoneId).setIncludeAll(false))));
+    }
+
+    private Run cacheRun(Project project, Run run) {
+        cache.putRunId(project.getId(), run.getName(), run.getId());
+        return run;
     }
 
     public void addTestResult(Run testRun, Case testCase, TestResults result) {
         int testResultId = getStatusIdByResult(result);
-        this.testRail.results().addForCase(testRun.getId(), testCase.getId(), new Result().setStatusId(testResultId), getResultFields()).execute();
+        executeOnce(this.testRail.results().addForCase(testRun.getId(), testCase.getId(), new Result().setStatusId(testResultId), getResultFields()));
     }
 
     public void addTestResult(Run testRun, Case testCase, TestResults result, HashMap<String, Object> customFields) {
         int testResultId = getStatusIdByResult(result);
-        this.testRail.results().addForCase(testRun.getId(), testCase.getId(), new Result().setStatusId(testResultId).setCustomFields(customFields), getResultFields()).execute();
+        executeOnce(this.testRail.results().addForCase(testRun.getId(), testCase.getId(), new Result().setStatusId(testResultId).setCustomFields(customFields), getResultFields()));
     }
 
     public void addTestResult(Run testRun, Case testCase, Result result) {
-        this.testRail.results().addForCase(testRun.getId(), testCase.getId(), result, getResultFields()).execute();
+        executeOnce(this.testRail.results().addForCase(testRun.getId(), testCase.getId(), result, getResultFields()));
     }
 
     public void addTestResult(Run testRun, Case testCase, String result) {
-        this.testRail.results().addForCase(testRun.getId(), testCase.getId(), new Result().setStatusId(getStatusId(result)), getResultFields()).execute();
+        executeOnce(this.testRail.results().addForCase(testRun.getId(), testCase.getId(), new Result().setStatusId(getStatusId(result)), getResultFields()));
     }
 
     public void addTestResult(Run testRun, Case testCase, String result, String comment) {
-        this.testRail.results().addForCase(testRun.getId(), testCase.getId(), new Result().setStatusId(getStatusId(result)).setComment(comment), getResultFields()).execute();
+        executeOnce(this.testRail.results().addForCase(testRun.getId(), testCase.getId(), new Result().setStatusId(getStatusId(result)).setComment(comment), getResultFields()));
+    }
+
+    /**
+     * Adds results for many test cases with a single add_results_for_cases request. The caller splits the results
+     * into batches small enough for one request (testrail.batch.size).
+     * @param testRun Test run, which must already include every case
+     * @param results Results, each with its case id set
+     */
+    public void addTestResults(Run testRun, List<Result> results) {
+        if (results.isEmpty()) return;
+        executeOnce(this.testRail.results().addForCases(testRun.getId(), new ArrayList<>(results), getResultFields()));
+    }
+
+    /**
+     * Adds results for many test cases as addTestResults() does, but on one of the uploader's worker threads (or on
+     * the calling thread when there is no uploader), so that batches are sent concurrently
+     * @return Completion of the request
+     */
+    public CompletableFuture<Void> submitTestResults(Run testRun, List<Result> results) {
+        if (uploader == null) {
+            addTestResults(testRun, results);
+            return CompletableFuture.completedFuture(null);
+        }
+        if (results.isEmpty()) return CompletableFuture.completedFuture(null);
+        List<Result> batch = new ArrayList<>(results);
+        List<ResultField> resultFields = getResultFields();
+        return uploader.submit("add " + batch.size() + " results to run " + testRun.getId(),
+                () -> executeOnce(this.testRail.results().addForCases(testRun.getId(), batch, resultFields)));
     }
 
+    /**
+     * Adds a single case to a test run. Prefer assembleTestRun() when adding many cases.
+     */
     public void addTestCaseToTestRun(Run testRun, Integer testCaseId) {
-        List<Integer> currentCaseIds = new ArrayList<>();
-        List<Test> currentTests = this.testRail.tests().list(testRun.getId()).execute();
+        assembleTestRun(testRun, Collections.singleton(testCaseId));
+    }
+
+    /**
+     * Makes sure a test run includes all of the given cases, listing its current tests once and updating the run
+     * only if any case is missing
+     * @param testRun Test run
+     * @param caseIds Case ids which must be included
+     * @return Case ids now included in the run
+     */
+    public Set<Integer> assembleTestRun(Run testRun, Collection<Integer> caseIds) {
+        Set<Integer> currentCaseIds = new LinkedHashSet<>();
+        List<Test> currentTests = execute(this.testRail.tests().list(testRun.getId()));
         for (Test test : currentTests) {
             currentCaseIds.add(test.getCaseId());
         }
-        currentCaseIds.add(testCaseId);
+        if (currentCaseIds.containsAll(caseIds)) {
+            return currentCaseIds;
+        }
+        currentCaseIds.addAll(caseIds);
         testRun.setIncludeAll(false);
-        testRun.setCaseIds(currentCaseIds);
-        testRail.runs().update(testRun).execute();
+        testRun.setCaseIds(new ArrayList<>(currentCaseIds));
+        executeOnce(testRail.runs().update(testRun));
+        return currentCaseIds;
     }
 
     public Run getTestRunById(int id) {
-        return testRail.runs().get(id).execute();
+        return execute(testRail.runs().get(id));
     }
 
     private List<CaseField> getTestCaseField() {
-        return this.testRail.caseFields().list().execute();
+        return cache.getCaseFields(() -> execute(this.testRail.caseFields().list()));
     }
 
     private List<ResultField> getResultFields() {
-        return this.testRail.resultFields().list().execute();
+        return cache.getResultFields(() -> execute(this.testRail.resultFields().list()));
+    }
+
+    private <T> T execute(Request<T> request) {
+        return uploader == null ? request.execute() : uploader.call(request::execute);
+    }
+
+    /**
+     * Makes a request which adds or changes data, which must not be retried once TestRail may have applied it
+     */
+    private <T> T executeOnce(Request<T> request) {
+        return uploader == null ? request.execute() : uploader.callOnce(request::execute);
+    }
+
+    public TestRailMetadataCache getCache() {
+        return cache;
     }
 
     public int getStatusIdByResult(TestResults result) {
@@ -1,35 +1,82 @@
 package utils.testrail.handlers;
 
-import com.codepine.api.testrail.model.Case;
 import com.codepine.api.testrail.model.Project;
+import com.codepine.api.testrail.model.Result;
 import com.codepine.api.testrail.model.Run;
 import org.apache.log4j.Logger;
 import utils.config.ConfigManager;
+import utils.config.LazyDecryptingProperties;
 import utils.testrail.Constants;
 import utils.testrail.exceptions.NoTestRailUrlException;
 import utils.testrail.exceptions.ProjectNotFoundException;
 import utils.testrail.report.ReportProcessor;
+import utils.testrail.report.ReportWatcher;
+import utils.testrail.report.ScenarioResults;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static utils.testrail.Constants.*;
 
 public class TestRailIntegrationImp {
+    /**
+     * Number of results sent per add_results_for_cases request, unless configured by testrail.batch.size
+     */
+    public static final int DEFAULT_BATCH_SIZE = 250;
+
     private TestRailConnector testRailConnector;
     private static final Logger logger = Logger.getLogger(TestRailIntegrationImp.class);
+    // Keyed by report directory, as a long-lived JVM (RunnerDaemon) may run with a different directory each time
+    private static final Map<String, ReportWatcher> watchers = new HashMap<>();
+    private static TestRailIntegrationImp watching;
+    private static final long SHUTDOWN_WAIT_MINUTES = 5;
+    private static ExecutorService updateExecutor;
+    // Read without the class lock, which update() holds for the whole upload
+    private static volatile Future<?> backgroundUpdate;
     private Properties properties;
+    private TestRailUploader uploader;
+    private Credential credential;
+    private TestRailOutbox outbox;
+    private String testRunName;
+    private final Map<String, Run> runs = new HashMap<>();
+    private final Map<Integer, Set<Integer>> runCaseIds = new HashMap<>();
+    private final Set<Long> submitted = ConcurrentHashMap.newKeySet();
 
     public TestRailIntegrationImp() throws IOException {
         ConfigManager configManager = new ConfigManager();
         this.properties = configManager.getTestRailConfigProperties();
     }
 
-    @SuppressWarnings("unchecked")
-    public void execute() throws ProjectNotFoundException, NoTestRailUrlException {
+    /**
+     * @param properties TestRail configuration (already decrypted), e.g. to upload to a local TestRail stand-in
+     */
+    public TestRailIntegrationImp(Properties properties) {
+        this.properties = properties;
+    }
+
+    public void execute() throws ProjectNotFoundException, NoTestRailUrlException, IOException {
         ReportProcessor reportProcessor = new ReportProcessor();
-        HashMap<String, HashMap<String, Object>> reports = reportProcessor.analyseReports();
+        upload(reportProcessor.analyseReports());
+        awaitUploads();
+    }
+
+    /**
+     * Uploads the results of one or more reports. The results are journaled to the outbox first, then every record
+     * pending in the outbox is posted (including any left by an earlier upload which failed), so this can be called
+     * repeatedly as reports are written. Results are posted asynchronously - call awaitUploads() to wait for them.
+     * @param reports Results keyed by test case id
+     */
+    public synchronized void upload(ScenarioResults reports) throws ProjectNotFoundException, NoTestRailUrlException, IOException {
         if (reports.isEmpty()) {
             logger.info("No report!");
             return;
@@ -40,45 +87,233 @@ public class TestRailIntegrationImp {
             return;
         }
 
-        testRailConnector = new TestRailConnector(properties.getProperty(TESTRAIL_URL), getCredential());
+        List<TestRailOutbox.Record> records = new ArrayList<>(reports.size());
+        for (int i = 0; i < reports.size(); i++) {
+            records.add(new TestRailOutbox.Record(reports.getCaseId(i), reports.getStatus(i).getValue(), reports.getMessage(i)));
+        }
+        getOutbox().append(properties.getProperty(Constants.PROJECT_NAME), getTestRunName(), records);
+        drain();
+    }
+
+    /**
+     * Posts every record pending in the outbox which is not already being posted. The project and run of each
+     * record are looked up (or created) once, and every case is added to its run before any result is posted.
+     */
+    public synchronized void drain() throws ProjectNotFoundException, NoTestRailUrlException, IOException {
+        if (getCredential() == null) {
+            logger.info("No TestRail credentials provided! Skip updating TestRail");
+            return;
+        }
+
+        Map<String, List<TestRailOutbox.Record>> runRecords = new LinkedHashMap<>();
+        for (TestRailOutbox.Record record : getOutbox().getPending()) {
+            if (submitted.add(record.getSeq())) {
+                runRecords.computeIfAbsent(record.getProject() + "\n" + record.getRun(), key -> new ArrayList<>()).add(record);
+            }
+        }
+        List<List<TestRailOutbox.Record>> groups = new ArrayList<>(runRecords.values());
+        for (int i = 0; i < groups.size(); i++) {
+            try {
+                post(groups.get(i));
+            } catch (Exception e) {
+                // Leave the records of this and the remaining runs pending, so the next drain (or a replay) posts them
+                for (List<TestRailOutbox.Record> records : groups.subList(i, groups.size())) {
+                    release(records);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void post(List<TestRailOutbox.Record> records) throws ProjectNotFoundException, NoTestRailUrlException {
+        List<Integer> caseIds = new ArrayList<>(records.size());
+        for (TestRailOutbox.Record record : records) {
+            caseIds.add(record.getCaseId());
+        }
+        Run run = getRun(records.get(0).getProject(), records.get(0).getRun(), caseIds);
 
-        Project project = testRailConnector.getProject(properties.getProperty(Constants.PROJECT_NAME));
-        String testRunName = getTestRunName();
-        Run run = getExpectedRun(project, testRunName);
+        int batchSize = Math.max(getIntProperty(BATCH_SIZE, DEFAULT_BATCH_SIZE), 1);
+        for (int from = 0; from < records.size(); from += batchSize) {
+            List<TestRailOutbox.Record> chunk = new ArrayList<>(records.subList(from, Math.min(from + batchSize, records.size())));
+            List<Result> results = new ArrayList<>(chunk.size());
+            for (TestRailOutbox.Record record : chunk) {
+                results.add(new Result()
+                        .setCaseId(record.getCaseId())
+                        .setStatusId(testRailConnector.getStatusId(record.getStatus()))
+                        .setComment(record.getComment()));
+            }
+            // Acknowledged as part of the tracked upload, so awaitUploads() returns only once the ack is on disk
+            TestRailOutbox journal = outbox;
+            uploader.track("acknowledge " + chunk.size() + " posted results in the TestRail outbox",
+                    testRailConnector.submitTestResults(run, results).handle((ignored, e) -> {
+                        try {
+                            // A failed upload is reported by the uploader, and its records are left pending
+                            if (e == null) {
+                                journal.ack(chunk);
+                            }
+                            return null;
+                        } catch (IOException ioException) {
+                            throw new UncheckedIOException(ioException);
+                        } finally {
+                            release(chunk);
+                        }
+                    }));
+        }
+    }
+
+    private void release(List<TestRailOutbox.Record> records) {
+        for (TestRailOutbox.Record record : records) {
+            submitted.remove(record.getSeq());
+        }
+    }
+
+    /**
+     * Gets (or creates) a test run, making sure it includes the given cases
+     */
+    private Run getRun(String projectName, String runName, List<Integer> caseIds) throws ProjectNotFoundException, NoTestRailUrlException {
+        TestRailConnector connector = getConnector();
+        String key = projectName + "\n" + runName;
+        Run run = runs.get(key);
         if (run == null) {
-            run = testRailConnector.createTestRun(project, testRunName);
+            Project project = connector.getProject(projectName);
+            run = getExpectedRun(project, runName);
+            if (run == null) {
+                run = connector.createTestRun(project, runName, caseIds);
+                runCaseIds.put(run.getId(), new HashSet<>(caseIds));
+            }
+            runs.put(key, run);
+        }
+
+        // Add every case to the run before posting results, in one update rather than one per case
+        Set<Integer> included = runCaseIds.computeIfAbsent(run.getId(), id -> new HashSet<>());
+        if (!included.containsAll(caseIds)) {
+            included.addAll(connector.assembleTestRun(run, caseIds));
+        }
+        return run;
+    }
+
+    private TestRailConnector getConnector() throws NoTestRailUrlException {
+        if (testRailConnector == null) {
+            uploader = new TestRailUploader(
+                    getIntProperty(UPLOAD_THREADS, TestRailUploader.DEFAULT_THREADS),
+                    getIntProperty(RATE_LIMIT, TestRailUploader.DEFAULT_REQUESTS_PER_MINUTE),
+                    getIntProperty(UPLOAD_RETRIES, TestRailUploader.DEFAULT_RETRIES));
+            testRailConnector = new TestRailConnector(properties.getProperty(TESTRAIL_URL), getCredential(), getMetadataCache(), uploader);
+        }
+        return testRailConnector;
+    }
+
+    private TestRailOutbox getOutbox() throws IOException {
+        if (outbox == null) {
+            outbox = new TestRailOutbox(properties.getProperty(OUTBOX_DIR, TestRailOutbox.DEFAULT_DIR));
+        }
+        return outbox;
+    }
+
+    /**
+     * Posts the records left pending in an outbox (for example by a run which could not reach TestRail), without
+     * running any tests
+     * @param outboxDir Outbox directory
+     */
+    public void replay(String outboxDir) throws ProjectNotFoundException, NoTestRailUrlException, IOException {
+        synchronized (this) {
+            if (outbox != null) {
+                outbox.close();
+            }
+            outbox = new TestRailOutbox(outboxDir);
+            logger.info("Replaying " + outbox.getPending().size() + " TestRail result(s) from " + outboxDir);
+            drain();
         }
+        awaitUploads();
+    }
+
+    /**
+     * Waits until every result passed to upload() has been posted, then deletes the outbox journal if nothing is
+     * left pending and closes the outbox, so another JVM can use it
+     * @throws IOException If any results could not be posted (they are left in the outbox)
+     */
+    public void awaitUploads() throws IOException {
+        TestRailUploader current;
+        synchronized (this) {
+            current = uploader;
+        }
+        try {
+            if (current != null) {
+                current.awaitCompletion();
+            }
+        } finally {
+            synchronized (this) {
+                // Left open while another thread is still posting
+                if (outbox != null && submitted.isEmpty()) {
+                    outbox.compact();
+                    outbox.close();
+                    outbox = null;
+                }
+            }
+        }
+    }
 
-        for (Map.Entry<String, HashMap<String, Object>> entry : reports.entrySet()) {
-            String testCaseId = entry.getKey();
-            HashMap<String, Object> testCaseResult = entry.getValue();
-            HashMap<String, Object> result = (HashMap<String, Object>) testCaseResult.get("result");
-            StringBuilder message = (StringBuilder) result.get("message");
-            String status = (String) result.get("status");
-            Case testCase = testRailConnector.getTestCaseById(project, Integer.parseInt(testCaseId));
-            testRailConnector.addTestCaseToTestRun(run, Integer.parseInt(testCaseId));
-            testRailConnector.addTestResult(run, testCase, status, message.toString());
+    private int getIntProperty(String name, int defaultValue) {
+        String value = properties.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid " + name + " '" + value + "', using " + defaultValue);
+            return defaultValue;
         }
     }
 
     private Credential getCredential() {
-        if (properties.getProperty(TESTRAIL_PASS) == null || properties.getProperty(TESTRAIL_USER) == null)
-            return null;
-        return new Credential(properties.getProperty(TESTRAIL_USER),properties.getProperty(TESTRAIL_PASS));
+        if (credential == null) {
+            // Read (and so decrypt) each value once
+            String user = properties.getProperty(TESTRAIL_USER);
+            String pass = properties.getProperty(TESTRAIL_PASS);
+            if (pass == null || user == null)
+                return null;
+            credential = new Credential(user, pass);
+        }
+        return credential;
+    }
+
+    /**
+     * Discards the decrypted configuration values once results have been uploaded, so they are not kept for the life
+     * of a long-lived JVM
+     */
+    private void clearDecrypted() {
+        if (properties instanceof LazyDecryptingProperties) {
+            ((LazyDecryptingProperties) properties).clearDecrypted();
+        }
     }
 
     private Run getExpectedRun(Project project, String testRunName) {
-        List<Run> runs = testRailConnector.getRuns(project);
-        for (Run run : runs) {
-            if (run.getName().trim().equalsIgnoreCase(testRunName)) {
-                return run;
+        return testRailConnector.getRun(project, testRunName);
+    }
+
+    private TestRailMetadataCache getMetadataCache() {
+        long ttl = TestRailMetadataCache.DEFAULT_TTL_SECONDS;
+        String configuredTtl = properties.getProperty(CACHE_TTL);
+        if (configuredTtl != null && !configuredTtl.trim().isEmpty()) {
+            try {
+                ttl = Long.parseLong(configuredTtl.trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid " + CACHE_TTL + " '" + configuredTtl + "', using " + ttl);
             }
         }
-        return null;
+        return new TestRailMetadataCache(properties.getProperty(TESTRAIL_URL), ttl, properties.getProperty(CACHE_FILE, TestRailMetadataCache.DEFAULT_SNAPSHOT_FILE));
     }
 
 
     private String getTestRunName() {
+        if (testRunName == null) {
+            testRunName = createTestRunName();
+        }
+        return testRunName;
+    }
+
+    private String createTestRunName() {
         String buildNumber = System.getenv(BUILD_NUMBER);
         String buildDefinition = System.getenv(BUILD_DEFINITION);
         logger.info("Build number "+buildNumber);
@@ -95,10 +330,110 @@ public class TestRailIntegrationImp {
         return formatter.format(now);
     }
 
+    private static boolean isUpdateEnabled() {
+        return System.getenv(BUILD_NUMBER) != null && !System.getenv(BUILD_NUMBER).isEmpty();
+    }
+
+    /**
+     * Starts uploading the results of each feature as soon as Karate writes its JSON report, while the remaining
+     * features are still running. Call update() at the end of the run to upload whatever is left.
+     */
+    public static synchronized void watch() throws IOException {
+        if (!isUpdateEnabled()) {
+            return;
+        }
+        getWatcher(new ReportProcessor().getReportDir()).start();
+    }
+
+    /**
+     * Uploads the results of every report in apitest.json.report.dir which this JVM has not uploaded yet, then waits
+     * until they have been posted
+     * @see #update(String)
+     */
     public static void update() throws ProjectNotFoundException, NoTestRailUrlException, IOException {
-        if (System.getenv(BUILD_NUMBER) != null && !System.getenv(BUILD_NUMBER).isEmpty()) {
-            TestRailIntegrationImp imp = new TestRailIntegrationImp();
-            imp.execute();
+        update(new ReportProcessor().getReportDir());
+    }
+
+    /**
+     * Uploads the results of every report in a directory which this JVM has not uploaded yet (a report rewritten since
+     * it was uploaded counts as new), then waits until they have been posted. Reports are remembered for the life of
+     * the JVM, so calling this after each runner, or each daemon run, never posts the same results twice.
+     * @param reportDir Directory of the Karate JSON reports
+     */
+    public static synchronized void update(String reportDir) throws ProjectNotFoundException, NoTestRailUrlException, IOException {
+        if (isUpdateEnabled()) {
+            ReportWatcher current = getWatcher(reportDir);
+            try {
+                current.flush();
+                watching.awaitUploads();
+            } finally {
+                watching.clearDecrypted();
+            }
+        }
+    }
+
+    /**
+     * Runs update(reportDir) on a background thread, so a long-lived JVM (e.g. RunnerDaemon) can carry on while results are
+     * posted. The first call adds a shutdown hook which waits up to 5 minutes for the upload to complete before the JVM
+     * exits - anything still not posted by then is left in the outbox, to be replayed. Not for surefire, whose forked
+     * JVM is halted shortly after the tests complete, whatever its shutdown hooks are doing.
+     * @param reportDir Directory of the Karate JSON reports, resolved by the caller as the system properties of the
+     *                  run may have changed by the time the upload starts
+     * @return Completes once the upload has finished
+     */
+    public static synchronized Future<?> updateInBackground(String reportDir) {
+        if (updateExecutor == null) {
+            updateExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "testrail-update");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Runtime.getRuntime().addShutdownHook(new Thread(TestRailIntegrationImp::awaitBackgroundUpdate, "testrail-update-shutdown"));
+        }
+        backgroundUpdate = updateExecutor.submit(() -> {
+            try {
+                update(reportDir);
+            } catch (Exception e) {
+                logger.error("Unable to update TestRail - results not posted are left in the outbox", e);
+            }
+        });
+        return backgroundUpdate;
+    }
+
+    private static void awaitBackgroundUpdate() {
+        Future<?> current = backgroundUpdate;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.get(SHUTDOWN_WAIT_MINUTES, TimeUnit.MINUTES);
+        } catch (TimeoutException e) {
+            logger.warn("TestRail update did not complete within " + SHUTDOWN_WAIT_MINUTES + " minutes - results not posted are left in the outbox");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Unable to update TestRail", e.getCause());
+        }
+    }
+
+    /**
+     * Gets the JVM's report watcher of a directory, which remembers which reports have been uploaded, creating it if
+     * need be. Every watcher uploads via the same TestRailIntegrationImp, so results go to the same run.
+     */
+    private static ReportWatcher getWatcher(String reportDir) throws IOException {
+        if (watching == null) {
+            watching = new TestRailIntegrationImp();
+        }
+        String key = Paths.get(reportDir).toAbsolutePath().normalize().toString();
+        ReportWatcher watcher = watchers.get(key);
+        if (watcher == null) {
+            TestRailIntegrationImp imp = watching;
+            watcher = new ReportWatcher(new ReportProcessor(reportDir), (file, results) -> {
+                logger.info("Uploading results from " + file);
+                imp.upload(results);
+            });
+            watchers.put(key, watcher);
         }
+        return watcher;
     }
 }
@@ -0,0 +1,196 @@
+package utils.testrail.handlers;
+
+import com.codepine.api.testrail.model.CaseField;
+import com.codepine.api.testrail.model.ResultField;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Supplier;
+
+/**
+ * Cache of slow changing TestRail metadata: case fields, result fields, project ids and run ids
+ *
+ * Every entry expires after the TTL. Project and run ids can also be kept within a snapshot file (under target/ by
+ * default), so later invocations within the same pipeline can skip listing every project and run. The snapshot records
+ * the TestRail URL its ids belong to, and is discarded when used with a different URL. Case and result fields are only
+ * cached in memory, shared (per TestRail URL) by all connectors within the JVM.
+ */
+public class TestRailMetadataCache {
+    private static final Logger logger = Logger.getLogger(TestRailMetadataCache.class);
+
+    public static final long DEFAULT_TTL_SECONDS = 3600;
+    public static final String DEFAULT_SNAPSHOT_FILE = "./target/testrail-metadata.properties";
+
+    private static final String PROJECT_PREFIX = "project.";
+    private static final String RUN_PREFIX = "run.";
+    private static final String URL_KEY = "url";
+
+    // Keyed by TestRail URL
+    private static final Map<String, Entry<List<CaseField>>> caseFields = new HashMap<>();
+    private static final Map<String, Entry<List<ResultField>>> resultFields = new HashMap<>();
+
+    private final String url;
+    private final long ttlMillis;
+    private final File snapshot;
+    private final Properties ids = new Properties();
+
+    /**
+     * @param testRailUrl URL of the TestRail instance the metadata belongs to
+     * @param ttlSeconds Time to live of each entry (0 or less disables caching)
+     * @param snapshotFile File used to keep project and run ids between invocations (null or empty to disable)
+     */
+    public TestRailMetadataCache(String testRailUrl, long ttlSeconds, String snapshotFile) {
+        this.url = normalise(testRailUrl);
+        this.ttlMillis = Math.max(ttlSeconds, 0) * 1000;
+        this.snapshot = snapshotFile == null || snapshotFile.trim().isEmpty() ? null : new File(snapshotFile.trim());
+        load();
+    }
+
+    public List<CaseField> getCaseFields(Supplier<List<CaseField>> loader) {
+        return get(caseFields, loader);
+    }
+
+    public List<ResultField> getResultFields(Supplier<List<ResultField>> loader) {
+        return get(resultFields, loader);
+    }
+
+    private <T> T get(Map<String, Entry<T>> entries, Supplier<T> loader) {
+        synchronized (TestRailMetadataCache.class) {
+            Entry<T> entry = entries.get(url);
+            if (!isValid(entry)) {
+                entry = new Entry<>(loader.get());
+                entries.put(url, entry);
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * @return Cached id of the project, or null if not cached (or expired)
+     */
+    public synchronized Integer getProjectId(String name) {
+        return getId(PROJECT_PREFIX + key(name));
+    }
+
+    public synchronized void putProjectId(String name, int id) {
+        putId(PROJECT_PREFIX + key(name), id);
+    }
+
+    /**
+     * @return Cached id of the run, or null if not cached (or expired)
+     */
+    public synchronized Integer getRunId(int projectId, String name) {
+        return getId(RUN_PREFIX + projectId + "." + key(name));
+    }
+
+    public synchronized void putRunId(int projectId, String name, int id) {
+        putId(RUN_PREFIX + projectId + "." + key(name), id);
+    }
+
+    public synchronized void invalidateRun(int projectId, String name) {
+        if (ids.remove(RUN_PREFIX + projectId + "." + key(name)) != null) {
+            save();
+        }
+    }
+
+    /**
+     * Discards every cached entry, including the snapshot file
+     */
+    public synchronized void invalidate() {
+        synchronized (TestRailMetadataCache.class) {
+            caseFields.remove(url);
+            resultFields.remove(url);
+        }
+        ids.clear();
+        if (snapshot != null && snapshot.exists() && !snapshot.delete()) {
+            logger.warn("Unable to delete TestRail metadata snapshot " + snapshot);
+        }
+    }
+
+    private boolean isValid(Entry<?> entry) {
+        return entry != null && System.currentTimeMillis() - entry.created < ttlMillis;
+    }
+
+    private Integer getId(String key) {
+        String value = ids.getProperty(key);
+        if (value == null) return null;
+        try {
+            // Stored as "id,created"
+            String[] parts = value.split(",");
+            if (System.currentTimeMillis() - Long.parseLong(parts[1]) < ttlMillis) {
+                return Integer.parseInt(parts[0]);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring invalid TestRail metadata entry " + key + "=" + value);
+        }
+        ids.remove(key);
+        return null;
+    }
+
+    private void putId(String key, int id) {
+        if (ttlMillis <= 0) return;
+        ids.setProperty(URL_KEY, url);
+        ids.setProperty(key, id + "," + System.currentTimeMillis());
+        save();
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase();
+    }
+
+    private static String normalise(String testRailUrl) {
+        String normalised = testRailUrl == null ? "" : testRailUrl.trim();
+        while (normalised.endsWith("/")) {
+            normalised = normalised.substring(0, normalised.length() - 1);
+        }
+        return normalised;
+    }
+
+    private void load() {
+        if (snapshot == null || ttlMillis <= 0 || !snapshot.isFile()) return;
+        try (InputStream inputStream = new FileInputStream(snapshot)) {
+            ids.load(inputStream);
+        } catch (IOException e) {
+            logger.warn("Unable to read TestRail metadata snapshot " + snapshot, e);
+        }
+        // Ids of another TestRail instance (e.g. a stand-in) would point at the wrong projects and runs
+        if (!url.equals(ids.getProperty(URL_KEY))) {
+            if (!ids.isEmpty()) {
+                logger.info("Discarding TestRail metadata snapshot " + snapshot + " of " + ids.getProperty(URL_KEY));
+            }
+            ids.clear();
+        }
+    }
+
+    private void save() {
+        if (snapshot == null) return;
+        File parent = snapshot.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            logger.warn("Unable to create directory for TestRail metadata snapshot " + snapshot);
+            return;
+        }
+        try (OutputStream outputStream = new FileOutputStream(snapshot)) {
+            ids.store(outputStream, "TestRail metadata - id,created");
+        } catch (IOException e) {
+            logger.warn("Unable to write TestRail metadata snapshot " + snapshot, e);
+        }
+    }
+
+    private static class Entry<T> {
+        private final T value;
+        private final long created = System.currentTimeMillis();
+
+        Entry(T value) {
+            this.value = value;
+        }
+    }
+}
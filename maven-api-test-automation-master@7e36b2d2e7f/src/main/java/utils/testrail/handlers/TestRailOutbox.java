@@ -0,0 +1,293 @@
+package utils.testrail.handlers;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.log4j.Logger;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Append-only journal of TestRail results which have not been posted yet
+ *
+ * Results are appended to results.jsonl (one JSON record per line) before any request is made, and the sequence
+ * numbers of posted records are appended to acked.log. Records which are in the journal but not acknowledged are
+ * pending, so an upload which failed part way through (or a JVM which exited early) can resume where it stopped,
+ * either on the next upload or using TestRailOutboxReplay. An incomplete last line (from a crash while appending) is
+ * dropped when the outbox is opened. Once every record has been posted the journal is deleted.
+ *
+ * An open outbox holds a lock on its directory (outbox.lock), so that two JVMs (e.g. surefire forks, or a test run and
+ * TestRailOutboxReplay) cannot append to or compact the same journal at once. Opening an outbox which is open elsewhere
+ * waits until it is closed.
+ */
+public class TestRailOutbox implements Closeable {
+    private static final Logger logger = Logger.getLogger(TestRailOutbox.class);
+
+    public static final String DEFAULT_DIR = "./target/testrail-outbox";
+
+    private static final String RESULTS_FILE = "results.jsonl";
+    private static final String ACKED_FILE = "acked.log";
+    private static final String LOCK_FILE = "outbox.lock";
+
+    // A JVM cannot hold two file locks on the same file, so outboxes of the same directory also wait for each other here
+    private static final Map<String, Semaphore> openOutboxes = new HashMap<>();
+
+    private final Gson gson = new Gson();
+    private final File results;
+    private final File acked;
+    private final Map<Long, Record> pending = new LinkedHashMap<>();
+    private long nextSeq = 1;
+    private Semaphore open;
+    private FileChannel lockChannel;
+    private FileLock lock;
+
+    /**
+     * Opens (or creates) the outbox within a directory, loading any records not yet posted. Waits while the outbox is
+     * open in another JVM, or elsewhere in this one.
+     * @param dir Outbox directory
+     * @throws IOException If the directory cannot be created or locked, or the journal cannot be read
+     */
+    public TestRailOutbox(String dir) throws IOException {
+        File directory = new File(dir);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create TestRail outbox " + directory);
+        }
+        this.results = new File(directory, RESULTS_FILE);
+        this.acked = new File(directory, ACKED_FILE);
+        lock(directory);
+        try {
+            load();
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends results to the journal, syncing them to disk
+     * @param project TestRail project name
+     * @param run TestRail run name
+     * @param records Records to append (their sequence numbers are assigned by this call)
+     */
+    public synchronized void append(String project, String run, List<Record> records) throws IOException {
+        if (records.isEmpty()) return;
+        StringBuilder lines = new StringBuilder();
+        long seq = nextSeq;
+        for (Record record : records) {
+            record.seq = seq++;
+            record.project = project;
+            record.run = run;
+            lines.append(gson.toJson(record)).append('\n');
+        }
+        write(results, lines);
+        nextSeq = seq;
+        for (Record record : records) {
+            pending.put(record.seq, record);
+        }
+    }
+
+    /**
+     * @return Records which have been appended but not acknowledged, in the order they were appended
+     */
+    public synchronized List<Record> getPending() {
+        return new ArrayList<>(pending.values());
+    }
+
+    /**
+     * Acknowledges records which have been posted to TestRail
+     */
+    public synchronized void ack(Collection<Record> records) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (Record record : records) {
+            if (pending.remove(record.seq) != null) {
+                line.append(line.length() == 0 ? "" : " ").append(record.seq);
+            }
+        }
+        if (line.length() == 0) return;
+        write(acked, line.append('\n'));
+    }
+
+    /**
+     * Deletes the journal if every record has been acknowledged
+     * @return Whether the outbox is now empty
+     */
+    public synchronized boolean compact() {
+        if (!pending.isEmpty()) return false;
+        if ((results.exists() && !results.delete()) || (acked.exists() && !acked.delete())) {
+            logger.warn("Unable to delete TestRail outbox journal in " + results.getParent());
+        }
+        return true;
+    }
+
+    /**
+     * Releases the lock on the outbox directory. The outbox cannot be appended to or acknowledged once closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (open == null) return;
+        try {
+            if (lock != null) lock.release();
+        } finally {
+            lockChannel.close();
+            open.release();
+            open = null;
+        }
+    }
+
+    private void lock(File directory) throws IOException {
+        String key = directory.getCanonicalPath();
+        Semaphore semaphore;
+        synchronized (openOutboxes) {
+            semaphore = openOutboxes.computeIfAbsent(key, k -> new Semaphore(1));
+        }
+        try {
+            if (!semaphore.tryAcquire()) {
+                logger.info("Waiting for TestRail outbox " + directory + ", which is open in this JVM");
+                semaphore.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for TestRail outbox " + directory);
+        }
+        open = semaphore;
+        try {
+            lockChannel = FileChannel.open(new File(directory, LOCK_FILE).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = lockChannel.tryLock();
+            if (lock == null) {
+                logger.info("Waiting for TestRail outbox " + directory + ", which is open in another process");
+                lock = lockChannel.lock();
+            }
+        } catch (IOException | RuntimeException e) {
+            if (lockChannel != null) {
+                lockChannel.close();
+            }
+            open = null;
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    private void write(File file, CharSequence lines) throws IOException {
+        if (open == null) {
+            throw new IOException("TestRail outbox " + file.getParent() + " is closed");
+        }
+        try (FileOutputStream outputStream = new FileOutputStream(file, true)) {
+            outputStream.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+            outputStream.getFD().sync();
+        }
+    }
+
+    private void load() throws IOException {
+        Set<Long> ackedSeqs = new HashSet<>();
+        for (String line : readLines(acked)) {
+            for (String seq : line.trim().split("\\s+")) {
+                if (!seq.isEmpty()) ackedSeqs.add(Long.parseLong(seq));
+            }
+        }
+        for (String line : readLines(results)) {
+            Record record;
+            try {
+                record = gson.fromJson(line, Record.class);
+            } catch (JsonParseException e) {
+                logger.warn("Ignoring invalid TestRail outbox record: " + line);
+                continue;
+            }
+            if (record == null) continue;
+            nextSeq = Math.max(nextSeq, record.seq + 1);
+            if (!ackedSeqs.contains(record.seq)) {
+                pending.put(record.seq, record);
+            }
+        }
+        if (!pending.isEmpty()) {
+            logger.info(pending.size() + " TestRail result(s) pending in outbox " + results.getParent());
+        }
+    }
+
+    /**
+     * Reads the complete (newline terminated) lines of a file, truncating any incomplete last line so that the next
+     * append starts on a new line
+     */
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        if (!file.isFile()) return lines;
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int length = bytes.length;
+        while (length > 0 && bytes[length - 1] != '\n') length--;
+        if (length < bytes.length) {
+            logger.warn("Truncating incomplete last line of TestRail outbox " + file);
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+                channel.force(true);
+            }
+        }
+        String content = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        int start = 0;
+        for (int end = content.indexOf('\n'); end >= 0; end = content.indexOf('\n', start)) {
+            if (end > start) lines.add(content.substring(start, end));
+            start = end + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Result of a single test case, as journaled
+     */
+    public static class Record {
+        private long seq;
+        private String project;
+        private String run;
+        private int caseId;
+        private String status;
+        private String comment;
+
+        public Record() {
+        }
+
+        public Record(int caseId, String status, String comment) {
+            this.caseId = caseId;
+            this.status = status;
+            this.comment = comment;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public String getProject() {
+            return project;
+        }
+
+        public String getRun() {
+            return run;
+        }
+
+        public int getCaseId() {
+            return caseId;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getComment() {
+            return comment;
+        }
+    }
+}
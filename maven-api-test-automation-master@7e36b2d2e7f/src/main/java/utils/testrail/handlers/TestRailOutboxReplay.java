@@ -0,0 +1,25 @@
+package utils.testrail.handlers;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Posts the TestRail results left pending in an outbox, without running any tests
+ *
+ * Usage: TestRailOutboxReplay [outbox directory] (defaults to ./target/testrail-outbox)
+ */
+public class TestRailOutboxReplay {
+    private static final Logger logger = Logger.getLogger(TestRailOutboxReplay.class);
+
+    private TestRailOutboxReplay() {
+    }
+
+    public static void main(String[] args) {
+        String outboxDir = args.length > 0 ? args[0] : TestRailOutbox.DEFAULT_DIR;
+        try {
+            new TestRailIntegrationImp().replay(outboxDir);
+        } catch (Exception e) {
+            logger.error("Unable to replay TestRail outbox " + outboxDir, e);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package utils.testrail.handlers;
+
+import com.codepine.api.testrail.TestRailException;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Calls the TestRail API from a bounded pool of worker threads, without exceeding the API rate limit
+ *
+ * Every request (whether made via call() or from a task passed to submit()) takes a permit from a token bucket
+ * refilled at the configured number of requests per minute. When TestRail still responds with 429 (Too Many
+ * Requests) the bucket is paused for the time TestRail asks for, so all workers back off together. Server errors and
+ * I/O failures are retried with exponential backoff, except for requests which are not idempotent (callOnce()), which
+ * TestRail may have applied before failing. Those are only retried when throttled or when the connection could not be
+ * made.
+ */
+public class TestRailUploader {
+    private static final Logger logger = Logger.getLogger(TestRailUploader.class);
+
+    public static final int DEFAULT_THREADS = 4;
+    public static final int DEFAULT_REQUESTS_PER_MINUTE = 180;
+    public static final int DEFAULT_RETRIES = 5;
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final long DEFAULT_RETRY_AFTER_MILLISECONDS = 10000;
+    private static final long BACKOFF_MILLISECONDS = 500;
+    private static final long MAX_BACKOFF_MILLISECONDS = 30000;
+    // The client does not expose response headers, so Retry-After is read from the error, e.g. "Retry after 10 seconds"
+    private static final Pattern RETRY_AFTER = Pattern.compile("retry after (\\d+)", Pattern.CASE_INSENSITIVE);
+
+    private final ThreadPoolExecutor executor;
+    private final TokenBucket tokenBucket;
+    private final int retries;
+    // Submitted (or tracked) futures not yet joined by awaitCompletion()
+    private final Set<CompletableFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param threads Number of worker threads
+     * @param requestsPerMinute Maximum number of requests per minute (0 or less for no limit)
+     * @param retries Number of times a throttled or failed request is retried
+     */
+    public TestRailUploader(int threads, int requestsPerMinute, int retries) {
+        int poolSize = Math.max(threads, 1);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(poolSize * 16), runnable -> {
+                    Thread thread = new Thread(runnable, "testrail-uploader-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.tokenBucket = requestsPerMinute > 0 ? new TokenBucket(requestsPerMinute) : null;
+        this.retries = Math.max(retries, 0);
+    }
+
+    /**
+     * Makes a request on the calling thread, waiting for a rate limit permit and retrying if it is throttled or fails
+     * @param request Request, e.g. () -> testRail.runs().get(id).execute()
+     * @return Response of the request
+     */
+    public <T> T call(Supplier<T> request) {
+        return call(request, true);
+    }
+
+    /**
+     * Makes a request which is not idempotent (e.g. adding results or a run) as call() does, but only retries it if
+     * it is throttled or the connection could not be made, so a request TestRail may have applied is never repeated
+     * @param request Request, e.g. () -> testRail.results().addForCases(id, results, fields).execute()
+     * @return Response of the request
+     */
+    public <T> T callOnce(Supplier<T> request) {
+        return call(request, false);
+    }
+
+    private <T> T call(Supplier<T> request, boolean idempotent) {
+        for (int attempt = 0; ; attempt++) {
+            acquire();
+            try {
+                return request.get();
+            } catch (TestRailException e) {
+                if (attempt >= retries) throw e;
+                if (e.getResponseCode() == TOO_MANY_REQUESTS) {
+                    long retryAfter = getRetryAfter(e);
+                    logger.warn("TestRail rate limit exceeded, pausing requests for " + retryAfter + " ms");
+                    if (tokenBucket != null) {
+                        tokenBucket.pause(retryAfter);
+                    } else {
+                        sleep(retryAfter);
+                    }
+                } else if (idempotent && e.getResponseCode() >= 500) {
+                    backoff(attempt, e);
+                } else {
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                if (attempt >= retries || !isRetryable(e.getCause(), idempotent)) throw e;
+                backoff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * @return Whether a request which failed with an exception can be retried: any I/O failure of an idempotent
+     * request, otherwise only failures to connect (before the request was sent)
+     */
+    private static boolean isRetryable(Throwable cause, boolean idempotent) {
+        if (idempotent) {
+            return cause instanceof IOException;
+        }
+        return cause instanceof ConnectException || cause instanceof UnknownHostException;
+    }
+
+    /**
+     * Runs a task on a worker thread. Failures are logged and reported by awaitCompletion().
+     * @param description Description of the task, used when logging failures
+     * @param task Task, which should make its requests via call()
+     * @return Completion of the task
+     */
+    public CompletableFuture<Void> submit(String description, Runnable task) {
+        return track(description, CompletableFuture.runAsync(task, executor));
+    }
+
+    /**
+     * Has awaitCompletion() wait for a future (e.g. one chained onto the future returned by submit()), and report it
+     * if it fails
+     * @param description Description of the work, used when logging failures
+     * @param future Completion of the work
+     * @return The future
+     */
+    public <T> CompletableFuture<T> track(String description, CompletableFuture<T> future) {
+        inFlight.add(future);
+        future.whenComplete((result, e) -> {
+            if (e != null) {
+                logger.error("Unable to " + description, e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Waits until every submitted (or tracked) task has completed
+     * @throws IOException If any task failed since the last call
+     */
+    public void awaitCompletion() throws IOException {
+        List<Throwable> failures = new ArrayList<>();
+        // A future is only forgotten once it has been joined here, so no failure can be missed
+        while (!inFlight.isEmpty()) {
+            for (CompletableFuture<?> future : new ArrayList<>(inFlight)) {
+                try {
+                    future.join();
+                } catch (CompletionException | CancellationException e) {
+                    failures.add(e.getCause() != null ? e.getCause() : e);
+                }
+                inFlight.remove(future);
+            }
+        }
+        if (!failures.isEmpty()) {
+            IOException exception = new IOException(failures.size() + " TestRail upload(s) failed", failures.get(0));
+            for (Throwable failure : failures.subList(1, failures.size())) {
+                exception.addSuppressed(failure);
+            }
+            throw exception;
+        }
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void acquire() {
+        if (tokenBucket == null) return;
+        try {
+            tokenBucket.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to call TestRail", e);
+        }
+    }
+
+    private void backoff(int attempt, RuntimeException e) {
+        long delay = Math.min(BACKOFF_MILLISECONDS << attempt, MAX_BACKOFF_MILLISECONDS);
+        logger.warn("TestRail request failed (" + e.getMessage() + "), retrying in " + delay + " ms");
+        sleep(delay);
+    }
+
+    private static void sleep(long milliseconds) {
+        try {
+            Thread.sleep(milliseconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry TestRail request", e);
+        }
+    }
+
+    private static long getRetryAfter(TestRailException e) {
+        if (e.getMessage() != null) {
+            Matcher matcher = RETRY_AFTER.matcher(e.getMessage());
+            if (matcher.find()) {
+                return TimeUnit.SECONDS.toMillis(Long.parseLong(matcher.group(1)));
+            }
+        }
+        return DEFAULT_RETRY_AFTER_MILLISECONDS;
+    }
+
+    /**
+     * Token bucket holding up to ten seconds worth of requests
+     */
+    private static class TokenBucket {
+        private final double permitsPerMillisecond;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill = System.currentTimeMillis();
+        private long pausedUntil;
+
+        TokenBucket(int requestsPerMinute) {
+            this.permitsPerMillisecond = requestsPerMinute / 60000.0;
+            this.capacity = Math.max(requestsPerMinute / 6.0, 1);
+            this.tokens = capacity;
+        }
+
+        void acquire() throws InterruptedException {
+            while (true) {
+                long wait;
+                synchronized (this) {
+                    long now = System.currentTimeMillis();
+                    if (now < pausedUntil) {
+                        wait = pausedUntil - now;
+                    } else {
+                        tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerMillisecond);
+                        lastRefill = now;
+                        if (tokens >= 1) {
+                            tokens -= 1;
+                            return;
+                        }
+                        wait = (long) Math.ceil((1 - tokens) / permitsPerMillisecond);
+                    }
+                }
+                Thread.sleep(wait);
+            }
+        }
+
+        synchronized void pause(long milliseconds) {
+            pausedUntil = Math.max(pausedUntil, System.currentTimeMillis() + milliseconds);
+            lastRefill = pausedUntil;
+            tokens = 0;
+        }
+    }
+}
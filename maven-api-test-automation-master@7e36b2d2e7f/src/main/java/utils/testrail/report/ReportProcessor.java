@@ -1,55 +1,148 @@
 package utils.testrail.report;
 
 import com.google.gson.Gson;
+import org.apache.log4j.Logger;
 import utils.testrail.report.model.Element;
 import utils.testrail.report.model.JsonReport;
 import utils.testrail.report.model.Step;
+import utils.util.Support;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 public class ReportProcessor {
+    private static final Logger logger = Logger.getLogger(ReportProcessor.class);
 
-    public HashMap<String, HashMap<String, Object>> analyseReports() {
-        List<JsonReport[]> reports = getReports();
-        HashMap<String, HashMap<String, Object>> results = new HashMap<>();
-        for (JsonReport[] featureReport : reports) {
-            for (JsonReport scenarioReport : featureReport) {
-                List<Element> elements = scenarioReport.getElements();
-                for (Element element : elements) {
-                    HashMap<String, Object> scenario = new HashMap<>();
-                    scenario.put("name", element.getName());
-                    scenario.put("result", getResult(element));
-                    results.put(extractTestIdFromName(element.getName()), scenario);
-                }
-            }
+    /**
+     * Whether reports are read using the streaming (pull) parser rather than building the full report object graph
+     */
+    public static final String STREAMING_PROPERTY = "apitest.report.streaming";
+
+    /**
+     * Number of threads used to parse report files in parallel (1 or less parses files one after another)
+     */
+    public static final String THREADS_PROPERTY = "apitest.report.threads";
+
+    private final Gson gson = new Gson();
+    private final String reportDir;
+    private boolean streaming;
+
+    public ReportProcessor() {
+        this(Support.getProperty("apitest.json.report.dir", "./target/surefire-reports"));
+    }
+
+    public ReportProcessor(String reportDir) {
+        this.reportDir = reportDir;
+    }
+
+    public String getReportDir() {
+        return reportDir;
+    }
+
+    public ScenarioResults analyseReports() {
+        List<String> files = getAllJsons();
+        streaming = Support.getProperty(STREAMING_PROPERTY, true);
+        int threads = Support.getProperty(THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+
+        if (threads <= 1 || files.size() <= 1) {
+            return analyseFiles(files);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(threads, files.size()));
+        try {
+            return pool.invoke(new AnalyseTask(files, 0, files.size()));
+        } finally {
+            pool.shutdown();
         }
+    }
+
+    /**
+     * Analyses a single report file, always using the streaming parser
+     * @param file Path of the JSON report file
+     * @return Results keyed by test case id
+     * @throws IOException If the file cannot be read, or is incomplete (still being written)
+     */
+    public ScenarioResults analyseReport(String file) throws IOException {
+        ScenarioResults results = new ScenarioResults();
+        new StreamingReportParser().parse(file, (name, status, message) -> addResult(results, name, status, message));
         return results;
     }
 
-    private List<JsonReport[]> getReports() {
-        List<String> files = getAllJsons();
-        List<JsonReport[]> allReports = new ArrayList<>();
-        Gson gson = new Gson();
+    /**
+     * Parses and reduces a range of report files, splitting the range in two until a single file remains
+     */
+    private class AnalyseTask extends RecursiveTask<ScenarioResults> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> files;
+        private final int from;
+        private final int to;
+
+        AnalyseTask(List<String> files, int from, int to) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ScenarioResults compute() {
+            if (to - from <= 1) {
+                return analyseFiles(files.subList(from, to));
+            }
+            int middle = (from + to) >>> 1;
+            AnalyseTask left = new AnalyseTask(files, from, middle);
+            left.fork();
+            ScenarioResults right = new AnalyseTask(files, middle, to).compute();
+            ScenarioResults results = left.join();
+            // Merge in file order, so later files win as they do when processed one after another
+            results.putAll(right);
+            return results;
+        }
+    }
+
+    private ScenarioResults analyseFiles(List<String> files) {
+        ScenarioResults results = new ScenarioResults();
         for (String file : files) {
-            JsonReport[] reports = gson.fromJson(readFile(file), JsonReport[].class);
-            allReports.add(reports);
+            if (streaming) {
+                analyseFileStreaming(file, results);
+            } else {
+                analyseFile(file, results);
+            }
+        }
+        return results;
+    }
+
+    private void analyseFileStreaming(String file, ScenarioResults results) {
+        try {
+            results.putAll(analyseReport(file));
+        } catch (IOException | IllegalStateException e) {
+            logger.error("Unable to read report " + file + " - its results are not uploaded", e);
+        }
+    }
+
+    private void analyseFile(String file, ScenarioResults results) {
+        JsonReport[] featureReport = gson.fromJson(readFile(file), JsonReport[].class);
+        if (featureReport == null) return;
+        for (JsonReport scenarioReport : featureReport) {
+            List<Element> elements = scenarioReport.getElements();
+            for (Element element : elements) {
+                addResult(results, element);
+            }
         }
-        return allReports;
     }
 
-    private HashMap<String, Object> getResult(Element element) {
-        HashMap<String, Object> result = new HashMap<>();
-        String status = "passed";
+    private void addResult(ScenarioResults results, Element element) {
+        ScenarioStatus status = ScenarioStatus.PASSED;
         StringBuilder message = new StringBuilder();
         for (Step step : element.getSteps()) {
             if (!step.getResult().getStatus().equalsIgnoreCase("passed")) {
-                status = "failed";
+                status = ScenarioStatus.FAILED;
             }
 
             String stepMessage = step.getResult().getErrorMessage();
@@ -58,9 +151,33 @@ public class ReportProcessor {
                 message.append("\n").append(stepMessage);
             }
         }
-        result.put("status", status);
-        result.put("message", message);
-        return result;
+        addResult(results, element.getName(), status, message);
+    }
+
+    private void addResult(ScenarioResults results, String name, ScenarioStatus status, CharSequence message) {
+        int caseId = getTestCaseId(name);
+        if (caseId < 0) {
+            logger.warn("Scenario '" + name + "' does not start with a TestRail case id - skipped");
+            return;
+        }
+        results.put(caseId, status, message);
+    }
+
+    /**
+     * Gets the TestRail case id from a scenario name, such as "[C1234] - Verify ..."
+     * @param testName Scenario name
+     * @return Case id, or -1 if the name does not start with a numeric case id
+     */
+    private int getTestCaseId(String testName) {
+        String testId = testName == null ? null : extractTestIdFromName(testName);
+        if (testId == null || testId.isEmpty()) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(testId);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
     }
 
     private String extractTestIdFromName(String testName) {
@@ -77,7 +194,7 @@ public class ReportProcessor {
 
     private List<String> getAllJsons() {
         List<String> jsonFiles = new ArrayList<>();
-        File folder = new File("./target/surefire-reports");
+        File folder = new File(reportDir);
         File[] files = folder.listFiles();
         if (files == null) return jsonFiles;
         for (File file : files) {
@@ -0,0 +1,205 @@
+package utils.testrail.report;
+
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * Watches the Karate report directory and passes the results of each feature's JSON report to a listener as soon as
+ * the report has been written, while the remaining features are still running.
+ *
+ * A file is only processed once it has not been modified for a short quiet period and parses as complete JSON.
+ * Files which are still being written are retried on the next poll, until they have not been modified for 10 seconds -
+ * a file which still does not parse by then is left for flush(), which reports it. Handled files (and their
+ * modification time) are remembered, so a file is only passed to the listener again if Karate rewrites it.
+ */
+public class ReportWatcher {
+    private static final Logger logger = Logger.getLogger(ReportWatcher.class);
+
+    private static final long POLL_MILLISECONDS = 250;
+    private static final long QUIET_MILLISECONDS = 500;
+    private static final long MALFORMED_MILLISECONDS = 10000;
+
+    /**
+     * Receives the results of each report file
+     */
+    public interface ReportListener {
+        void report(String file, ScenarioResults results) throws Exception;
+    }
+
+    private final ReportProcessor reportProcessor;
+    private final ReportListener listener;
+    private final Path reportDir;
+    private final Map<String, Long> handled = new ConcurrentHashMap<>();
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final Set<String> failed = new LinkedHashSet<>();
+    private WatchService watchService;
+    private Thread thread;
+    private volatile boolean running;
+
+    public ReportWatcher(ReportProcessor reportProcessor, ReportListener listener) {
+        this.reportProcessor = reportProcessor;
+        this.listener = listener;
+        this.reportDir = Paths.get(reportProcessor.getReportDir()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Starts watching the report directory on a background (daemon) thread
+     * @throws IOException If the report directory cannot be created or watched
+     */
+    public synchronized void start() throws IOException {
+        if (running) return;
+        Files.createDirectories(reportDir);
+        watchService = reportDir.getFileSystem().newWatchService();
+        reportDir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        running = true;
+        thread = new Thread(this::watch, "testrail-report-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Watching report directory " + reportDir);
+    }
+
+    private void watch() {
+        while (running) {
+            try {
+                WatchKey key = watchService.poll(POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        Object context = event.context();
+                        if (context instanceof Path && context.toString().endsWith(".json")) {
+                            synchronized (this) {
+                                pending.add(reportDir.resolve((Path) context).toString());
+                            }
+                        }
+                    }
+                    key.reset();
+                }
+                processPending();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            }
+        }
+    }
+
+    private synchronized void processPending() {
+        long now = System.currentTimeMillis();
+        for (String file : new LinkedHashSet<>(pending)) {
+            long lastModified = new File(file).lastModified();
+            if (now - lastModified < QUIET_MILLISECONDS) {
+                // Still being written - try again on the next poll
+                continue;
+            }
+            try {
+                if (process(file, lastModified)) {
+                    pending.remove(file);
+                } else if (now - lastModified >= MALFORMED_MILLISECONDS) {
+                    // Not modified for a while, so it is not being written - it will not parse on a later poll either
+                    logger.error("Unable to read report " + file + ", will retry when flushed");
+                    pending.remove(file);
+                    failed.add(file);
+                }
+            } catch (Exception e) {
+                // Leave it for flush() so a persistent failure is not retried on every poll
+                logger.error("Unable to process report " + file + ", will retry when flushed", e);
+                pending.remove(file);
+                failed.add(file);
+            }
+        }
+    }
+
+    /**
+     * Parses a file and passes the results to the listener, unless the file has already been handled
+     * @return Whether the file could be read (and so has been handled)
+     */
+    private boolean process(String file, long lastModified) throws Exception {
+        Long handledModified = handled.get(file);
+        if (handledModified != null && handledModified == lastModified) {
+            return true;
+        }
+        ScenarioResults results;
+        try {
+            results = reportProcessor.analyseReport(file);
+        } catch (IOException e) {
+            // Incomplete JSON - Karate has probably not finished writing the file
+            return false;
+        }
+        listener.report(file, results);
+        handled.put(file, lastModified);
+        return true;
+    }
+
+    /**
+     * Stops watching, then processes every report file which has not been handled yet (including those which
+     * previously failed)
+     * @throws IOException If any report could not be read or the listener failed for it, once every other report has
+     * been processed
+     */
+    public void flush() throws IOException {
+        stop();
+        File[] files = reportDir.toFile().listFiles();
+        if (files == null) return;
+        List<Exception> failures = new ArrayList<>();
+        synchronized (this) {
+            failed.clear();
+            pending.clear();
+            for (File file : files) {
+                if (!file.getName().endsWith(".json")) continue;
+                try {
+                    Long handledModified = handled.get(file.getPath());
+                    if (handledModified != null && handledModified == file.lastModified()) continue;
+                    listener.report(file.getPath(), reportProcessor.analyseReport(file.getPath()));
+                    handled.put(file.getPath(), file.lastModified());
+                } catch (Exception e) {
+                    logger.error("Unable to process report " + file, e);
+                    failures.add(e);
+                }
+            }
+        }
+        if (!failures.isEmpty()) {
+            IOException exception = new IOException("Unable to process " + failures.size() + " report(s)", failures.get(0));
+            for (Exception failure : failures.subList(1, failures.size())) {
+                exception.addSuppressed(failure);
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Stops watching, without processing any remaining files
+     */
+    public void stop() {
+        running = false;
+        try {
+            if (watchService != null) {
+                watchService.close();
+            }
+            if (thread != null) {
+                thread.join();
+            }
+        } catch (IOException | InterruptedException e) {
+            logger.warn("Unable to stop report watcher cleanly", e);
+        }
+    }
+
+    public Set<String> getHandledFiles() {
+        return handled.keySet();
+    }
+}
@@ -0,0 +1,150 @@
+package utils.testrail.report;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact store of scenario results, keyed by TestRail case id
+ *
+ * Results are held in parallel arrays (case id, status byte and message) indexed by an open addressing table of
+ * primitive case ids, so no per-scenario objects are created. Identical error messages (for example the same
+ * assertion failing in many scenarios) are stored once. Adding a result for a case id which is already present
+ * replaces it, so later reports win.
+ *
+ * NOTE: Not thread safe - use one instance per thread and merge using putAll()
+ */
+public class ScenarioResults {
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] caseIds;
+    private byte[] statuses;
+    private String[] messages;
+    private int size;
+
+    // Slot -> index + 1 of the result within the arrays above (0 denotes an empty slot)
+    private int[] table;
+
+    private final Map<String, String> messagePool = new HashMap<>();
+
+    public ScenarioResults() {
+        this(16);
+    }
+
+    public ScenarioResults(int expectedSize) {
+        int capacity = Math.max(expectedSize, 4);
+        caseIds = new int[capacity];
+        statuses = new byte[capacity];
+        messages = new String[capacity];
+        table = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Adds (or replaces) the result of a test case
+     * @param caseId TestRail case id
+     * @param status Scenario status
+     * @param message Error messages (may be empty)
+     */
+    public void put(int caseId, ScenarioStatus status, CharSequence message) {
+        if (size + 1 > table.length * LOAD_FACTOR) {
+            rehash(table.length * 2);
+        }
+        int slot = slot(caseId);
+        int index = table[slot] - 1;
+        if (index < 0) {
+            index = size++;
+            if (index == caseIds.length) {
+                int capacity = caseIds.length * 2;
+                caseIds = Arrays.copyOf(caseIds, capacity);
+                statuses = Arrays.copyOf(statuses, capacity);
+                messages = Arrays.copyOf(messages, capacity);
+            }
+            caseIds[index] = caseId;
+            table[slot] = index + 1;
+        }
+        statuses[index] = (byte) status.ordinal();
+        messages[index] = dedupe(message);
+    }
+
+    /**
+     * Adds (or replaces) all results present within another store
+     * @param other Results to add
+     */
+    public void putAll(ScenarioResults other) {
+        for (int index = 0; index < other.size; index++) {
+            put(other.caseIds[index], other.getStatus(index), other.messages[index]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param caseId TestRail case id
+     * @return Index of the result for this case id, or -1 if not present
+     */
+    public int indexOf(int caseId) {
+        return table[slot(caseId)] - 1;
+    }
+
+    public int getCaseId(int index) {
+        checkIndex(index);
+        return caseIds[index];
+    }
+
+    public ScenarioStatus getStatus(int index) {
+        checkIndex(index);
+        return ScenarioStatus.fromOrdinal(statuses[index]);
+    }
+
+    public String getMessage(int index) {
+        checkIndex(index);
+        return messages[index];
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+    }
+
+    private String dedupe(CharSequence message) {
+        if (message == null || message.length() == 0) {
+            return "";
+        }
+        String value = message.toString();
+        String pooled = messagePool.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    private int slot(int caseId) {
+        int mask = table.length - 1;
+        int slot = mix(caseId) & mask;
+        while (table[slot] != 0 && caseIds[table[slot] - 1] != caseId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int tableSize) {
+        table = new int[tableSize];
+        for (int index = 0; index < size; index++) {
+            table[slot(caseIds[index])] = index + 1;
+        }
+    }
+
+    private static int mix(int value) {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int tableSizeFor(int capacity) {
+        int size = Integer.highestOneBit((int) (capacity / LOAD_FACTOR));
+        return Math.max(size << 1, 8);
+    }
+}
@@ -0,0 +1,28 @@
+package utils.testrail.report;
+
+/**
+ * Status of a scenario, as reported within the Karate JSON report
+ */
+public enum ScenarioStatus {
+    PASSED("passed"),
+    FAILED("failed");
+
+    private static final ScenarioStatus[] VALUES = values();
+
+    private final String value;
+
+    ScenarioStatus(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @return Status name, as used by TestRailConnector.getStatusId()
+     */
+    public String getValue() {
+        return value;
+    }
+
+    static ScenarioStatus fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
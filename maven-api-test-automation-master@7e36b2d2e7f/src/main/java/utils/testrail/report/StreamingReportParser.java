@@ -0,0 +1,118 @@
+package utils.testrail.report;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Pull parser for Cucumber JSON reports written by Karate
+ *
+ * Walks features, elements and steps once, keeping only the scenario name, status and error messages. Everything
+ * else (embeddings, doc strings, matches, etc) is skipped without being materialised, so memory use does not grow
+ * with the size of the report.
+ */
+public class StreamingReportParser {
+
+    /**
+     * Receives each scenario (element) found within a report
+     *
+     * NOTE: The message buffer is reused for the next scenario, so it must be copied if it is to be kept
+     */
+    public interface ScenarioHandler {
+        void scenario(String name, ScenarioStatus status, CharSequence message);
+    }
+
+    private final StringBuilder message = new StringBuilder();
+
+    /**
+     * Parses a Cucumber JSON report file
+     * @param path Path of the JSON report file
+     * @param handler Handler called once per scenario
+     * @throws IOException If the file cannot be read or is not valid JSON
+     */
+    public void parse(final String path, final ScenarioHandler handler) throws IOException {
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                readFeature(reader, handler);
+            }
+            reader.endArray();
+        }
+    }
+
+    private void readFeature(final JsonReader reader, final ScenarioHandler handler) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("elements".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    readElement(reader, handler);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readElement(final JsonReader reader, final ScenarioHandler handler) throws IOException {
+        String name = null;
+        boolean passed = true;
+        message.setLength(0);
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String field = reader.nextName();
+            if ("name".equals(field) && reader.peek() == JsonToken.STRING) {
+                name = reader.nextString();
+            } else if ("steps".equals(field) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    passed &= readStep(reader);
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        handler.scenario(name, passed ? ScenarioStatus.PASSED : ScenarioStatus.FAILED, message);
+    }
+
+    /**
+     * Reads a single step, appending any error message
+     * @return Whether the step passed
+     */
+    private boolean readStep(final JsonReader reader) throws IOException {
+        boolean passed = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("result".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    final String field = reader.nextName();
+                    if ("status".equals(field) && reader.peek() == JsonToken.STRING) {
+                        passed = reader.nextString().equalsIgnoreCase("passed");
+                    } else if ("error_message".equals(field) && reader.peek() == JsonToken.STRING) {
+                        message.append("\n").append(reader.nextString());
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        return passed;
+    }
+}
@@ -7,7 +7,7 @@ public class Result {
 
     @SerializedName("duration")
     @Expose
-    private Integer duration;
+    private Long duration;
     @SerializedName("status")
     @Expose
     private String status;
@@ -15,11 +15,11 @@ public class Result {
     @Expose
     private String errorMessage;
 
-    public Integer getDuration() {
+    public Long getDuration() {
         return duration;
     }
 
-    public void setDuration(Integer duration) {
+    public void setDuration(Long duration) {
         this.duration = duration;
     }
 
@@ -0,0 +1,177 @@
+package utils.util;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.intuit.karate.Logger;
+
+/**
+ * Adjusts how many scenarios may run at once, using additive increase/multiplicative decrease (AIMD)
+ *
+ * Starts at a baseline. After each window of completed scenarios, the limit is raised by one if the window had no
+ * overload errors and its scenarios took no longer than the tolerance allows compared with their own recorded
+ * durations (DurationHistory). Otherwise (for example, the environment starts returning 502s, or slows down) the limit
+ * is cut by the decrease factor. Each scenario is compared with itself, as windows of long scenarios (started first)
+ * and short ones cannot be compared with each other; scenarios without a recorded duration only count towards the
+ * error rate. The limit always stays between the minimum and maximum.
+ *
+ * Callers acquire() before starting a scenario (blocking while the limit is reached) and release() when it completes.
+ */
+public class AdaptiveConcurrency {
+    protected static Logger logger = new Logger();
+
+    /**
+     * Proportion of a window's scenarios which may fail with overload errors before the limit is cut
+     */
+    private static final double ERROR_RATE_THRESHOLD = 0.05;
+
+    /**
+     * The limit is cut when a window's scenarios take longer than their recorded durations by this factor
+     */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    private static final double DECREASE_FACTOR = 0.7;
+
+    private final int min;
+    private final int max;
+
+    private double limit;
+    private int inFlight;
+
+    // Current window
+    private int windowCompleted;
+    private int windowErrors;
+    private long windowLatencyMillis;
+    // Latency and recorded duration of the window's scenarios which have a recorded duration
+    private double windowTimedLatencyMillis;
+    private double windowRecordedMillis;
+
+    // Summary of the run
+    private int lowest;
+    private int highest;
+    private long completed;
+    private long errors;
+    private long adjustments;
+    private double weightedLimit;
+    private long lastChangeNanos = System.nanoTime();
+    private final long startNanos = lastChangeNanos;
+
+    /**
+     * @param baseline Initial number of scenarios which may run at once
+     * @param min Lowest limit
+     * @param max Highest limit
+     */
+    public AdaptiveConcurrency(final int baseline, final int min, final int max) {
+        this.min = Math.max(min, 1);
+        this.max = Math.max(max, this.min);
+        this.limit = Math.min(Math.max(baseline, this.min), this.max);
+        this.lowest = getLimit();
+        this.highest = getLimit();
+    }
+
+    /**
+     * Waits until another scenario may start
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= getLimit()) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Records a completed scenario without a recorded duration, adjusting the limit at the end of each window
+     * @param latencyMillis How long the scenario took
+     * @param overloaded Whether the scenario failed because the environment was overloaded (e.g. 502, 503, timeout)
+     */
+    public void release(final long latencyMillis, final boolean overloaded) {
+        release(latencyMillis, null, overloaded);
+    }
+
+    /**
+     * Records a completed scenario, adjusting the limit at the end of each window
+     * @param latencyMillis How long the scenario took
+     * @param recordedMillis How long the scenario took in previous runs (or null if not known)
+     * @param overloaded Whether the scenario failed because the environment was overloaded (e.g. 502, 503, timeout)
+     */
+    public synchronized void release(final long latencyMillis, final Double recordedMillis, final boolean overloaded) {
+        inFlight--;
+        completed++;
+        windowCompleted++;
+        windowLatencyMillis += latencyMillis;
+        if (recordedMillis != null && recordedMillis > 0) {
+            windowTimedLatencyMillis += latencyMillis;
+            windowRecordedMillis += recordedMillis;
+        }
+        if (overloaded) {
+            errors++;
+            windowErrors++;
+        }
+        // A window is one scenario per slot, so the limit is reviewed about once per "round" of scenarios
+        if (windowCompleted >= getLimit()) {
+            adjust();
+        }
+        notifyAll();
+    }
+
+    private void adjust() {
+        final double averageLatency = (double) windowLatencyMillis / windowCompleted;
+        final double errorRate = (double) windowErrors / windowCompleted;
+        // How many times longer than their recorded durations the scenarios took (0 if none were recorded)
+        final double slowdown = (windowRecordedMillis > 0) ? windowTimedLatencyMillis / windowRecordedMillis : 0;
+        final int previous = getLimit();
+
+        if (errorRate > ERROR_RATE_THRESHOLD || slowdown > LATENCY_TOLERANCE) {
+            setLimit(Math.max(min, limit * DECREASE_FACTOR));
+        } else {
+            setLimit(Math.min(max, limit + 1));
+        }
+        if (getLimit() != previous) {
+            adjustments++;
+            logger.info("Concurrency {} -> {} (window: {} scenarios, {} ms average, {} x recorded, {} overload errors)",
+                    previous, getLimit(), windowCompleted, Math.round(averageLatency),
+                    String.format(Locale.ROOT, "%.1f", slowdown), windowErrors);
+        }
+        windowCompleted = 0;
+        windowErrors = 0;
+        windowLatencyMillis = 0;
+        windowTimedLatencyMillis = 0;
+        windowRecordedMillis = 0;
+    }
+
+    private void setLimit(final double value) {
+        final long now = System.nanoTime();
+        weightedLimit += getLimit() * (double) (now - lastChangeNanos);
+        lastChangeNanos = now;
+        limit = value;
+        lowest = Math.min(lowest, getLimit());
+        highest = Math.max(highest, getLimit());
+    }
+
+    /**
+     * @return Number of scenarios which may currently run at once
+     */
+    public synchronized int getLimit() {
+        return (int) Math.floor(limit);
+    }
+
+    /**
+     * @return Time weighted average of the limit since the controller was created
+     */
+    public synchronized double getAverageLimit() {
+        final long now = System.nanoTime();
+        final double elapsed = now - startNanos;
+        return (elapsed <= 0) ? getLimit() : (weightedLimit + getLimit() * (double) (now - lastChangeNanos)) / elapsed;
+    }
+
+    /**
+     * @return Summary of the concurrency chosen during the run, for logging and the HTML report
+     */
+    public synchronized String getSummary() {
+        return String.format("adaptive %d-%d: final %d, average %.1f, lowest %d, highest %d"
+                        + " (%d scenarios, %d overload errors, %d adjustments, %d s)",
+                min, max, getLimit(), getAverageLimit(), lowest, highest, completed, errors, adjustments,
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos));
+    }
+}
@@ -0,0 +1,233 @@
+package utils.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Immutable snapshot of the apitest.* system properties, resolved and type converted once
+ *
+ * Obtain using Support.getSettings(). Values follow the same rules as the Support.getProperty() methods: blank or
+ * invalid values are replaced by the default value.
+ */
+public final class ApiTestSettings {
+    private static final String PREFIX = "apitest.";
+
+    private final String proxyUri;
+    private final String proxyUsername;
+    private final String proxyPassword;
+    private final List<String> proxyNonProxyHosts;
+    private final boolean ssl;
+    private final int connectionTimeoutMilliseconds;
+    private final int readTimeoutMilliseconds;
+    private final boolean logPrettyRequest;
+    private final boolean logPrettyResponse;
+    private final int threads;
+    private final String jsonReportDir;
+    private final List<String> featurePaths;
+    private final List<String> tags;
+    private final int shardIndex;
+    private final int shardCount;
+    private final Long fakeDataSeed;
+    private final String fakeDataRecords;
+    private final Map<String, String> properties;
+
+    private ApiTestSettings() {
+        proxyUri = System.getProperty("apitest.configure.proxy.uri");
+        proxyUsername = System.getProperty("apitest.configure.proxy.username");
+        proxyPassword = System.getProperty("apitest.configure.proxy.password");
+        proxyNonProxyHosts = getList("apitest.configure.proxy.non.proxy.hosts", null, ",");
+        ssl = getBoolean("apitest.configure.ssl", true);
+        connectionTimeoutMilliseconds = getInt("apitest.configure.connection.timeout.milliseconds",
+                getInt("apitest.configure.connection.timeout.seconds", 0) * 1000);
+        readTimeoutMilliseconds = getInt("apitest.configure.read.timeout.milliseconds",
+                getInt("apitest.configure.read.timeout.seconds", 0) * 1000);
+        logPrettyRequest = getBoolean("apitest.configure.logPrettyRequest", true);
+        logPrettyResponse = getBoolean("apitest.configure.logPrettyResponse", true);
+        threads = getInt("apitest.threads", 1);
+        jsonReportDir = Support.getPropertyValue("apitest.json.report.dir", "./target/surefire-reports");
+        featurePaths = getList("apitest.feature.paths", "classpath:features/", ",");
+        tags = getList("apitest.tags", null, "&");
+        shardIndex = getInt("apitest.shard.index", 0);
+        shardCount = getInt("apitest.shard.count", 1);
+        fakeDataSeed = getLong("apitest.fakedata.seed");
+        fakeDataRecords = Support.getPropertyValue("apitest.fakedata.records", null);
+
+        final Map<String, String> values = new TreeMap<>();
+        for (final String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(PREFIX)) {
+                values.put(name, System.getProperty(name));
+            }
+        }
+        properties = Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Resolves the current system property values
+     * @return New snapshot
+     */
+    static ApiTestSettings resolve() {
+        return new ApiTestSettings();
+    }
+
+    private static int getInt(final String name, final int defaultValue) {
+        try {
+            return Integer.parseInt(Support.getPropertyValue(name, Integer.toString(defaultValue)));
+        } catch (final NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static Long getLong(final String name) {
+        final String value = Support.getPropertyValue(name, null);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(value.trim());
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static boolean getBoolean(final String name, final boolean defaultValue) {
+        final Boolean value = Support.parseBoolean(Support.getPropertyValue(name, Boolean.toString(defaultValue)));
+        return (value == null) ? defaultValue : value;
+    }
+
+    private static List<String> getList(final String name, final String defaultValue, final String delimiter) {
+        final String value = Support.getPropertyValue(name, defaultValue);
+        return StringUtils.isBlank(value)
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(Arrays.asList(value.split(delimiter))));
+    }
+
+    public String getProxyUri() {
+        return proxyUri;
+    }
+
+    public String getProxyUsername() {
+        return proxyUsername;
+    }
+
+    public String getProxyPassword() {
+        return proxyPassword;
+    }
+
+    public List<String> getProxyNonProxyHosts() {
+        return proxyNonProxyHosts;
+    }
+
+    public boolean isSsl() {
+        return ssl;
+    }
+
+    public int getConnectionTimeoutMilliseconds() {
+        return connectionTimeoutMilliseconds;
+    }
+
+    public int getReadTimeoutMilliseconds() {
+        return readTimeoutMilliseconds;
+    }
+
+    public boolean isLogPrettyRequest() {
+        return logPrettyRequest;
+    }
+
+    public boolean isLogPrettyResponse() {
+        return logPrettyResponse;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public String getJsonReportDir() {
+        return jsonReportDir;
+    }
+
+    public List<String> getFeaturePaths() {
+        return featurePaths;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * @return Index of the shard (0 to shard count - 1) of the features run by this JVM
+     */
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    /**
+     * @return Number of shards the features are split into (1 when the features are not sharded)
+     */
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * @return Whether this JVM only runs one shard of the features
+     */
+    public boolean isSharded() {
+        return shardCount > 1;
+    }
+
+    /**
+     * @return Seed used to generate reproducible FakeData (or null if FakeData is not seeded)
+     */
+    public Long getFakeDataSeed() {
+        return fakeDataSeed;
+    }
+
+    /**
+     * @return JSON Lines file of pre-generated user records read by FakeDataFeeder (or null to generate them)
+     */
+    public String getFakeDataRecords() {
+        return fakeDataRecords;
+    }
+
+    /**
+     * Gets the raw value of any apitest.* system property, as it was when the snapshot was taken
+     * @param name Name of system property
+     * @return System property value (or null if not defined)
+     */
+    public String getProperty(final String name) {
+        return properties.get(name);
+    }
+
+    /**
+     * @return Raw values of every apitest.* system property, as they were when the snapshot was taken
+     */
+    public Map<String, String> getProperties() {
+        return properties;
+    }
+
+    @Override
+    public String toString() {
+        return "proxyUri='" + proxyUri + "'"
+                + ", proxyUsername='" + proxyUsername + "'"
+                + ", proxyPassword=" + (proxyPassword == null ? "null" : "'*****'")
+                + ", proxyNonProxyHosts=" + proxyNonProxyHosts
+                + ", ssl=" + ssl
+                + ", connectionTimeoutMilliseconds=" + connectionTimeoutMilliseconds
+                + ", readTimeoutMilliseconds=" + readTimeoutMilliseconds
+                + ", logPrettyRequest=" + logPrettyRequest
+                + ", logPrettyResponse=" + logPrettyResponse
+                + ", threads=" + threads
+                + ", jsonReportDir='" + jsonReportDir + "'"
+                + ", featurePaths=" + featurePaths
+                + ", tags=" + tags
+                + ", shardIndex=" + shardIndex
+                + ", shardCount=" + shardCount
+                + ", fakeDataSeed=" + fakeDataSeed
+                + ", fakeDataRecords='" + fakeDataRecords + "'";
+    }
+}
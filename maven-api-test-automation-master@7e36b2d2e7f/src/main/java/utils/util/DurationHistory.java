@@ -0,0 +1,350 @@
+package utils.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.intuit.karate.Logger;
+
+import utils.testrail.report.model.Element;
+import utils.testrail.report.model.JsonReport;
+import utils.testrail.report.model.Step;
+
+/**
+ * Local history of how long each feature and scenario took, taken from the step durations within the Karate (Cucumber)
+ * JSON reports
+ *
+ * Durations are smoothed (exponentially weighted moving average), so a single slow run does not reorder everything.
+ * order() uses the history to start the longest features first, so a long feature does not start last and leave the
+ * other threads idle at the end of the run. Scenario durations (including the feature's Background) are the baselines
+ * AdaptiveConcurrency compares each scenario's latency with.
+ */
+public class DurationHistory {
+    protected static Logger logger = new Logger();
+
+    public static final String DEFAULT_FILE = "./.apitest/duration-history.properties";
+
+    private static final String FEATURE_PREFIX = "feature.";
+    private static final String SCENARIO_PREFIX = "scenario.";
+    private static final String SCENARIO_SEPARATOR = "#";
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String FEATURE_EXTENSION = ".feature";
+
+    /**
+     * Weight given to the latest duration
+     */
+    private static final double SMOOTHING = 0.5;
+
+    private final Gson gson = new Gson();
+    private final File file;
+    private final Map<String, Double> durations = new TreeMap<>();
+
+    private DurationHistory(final File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the history (empty if the file does not exist or cannot be read)
+     * @param file History file
+     * @return History
+     */
+    public static DurationHistory load(final String file) {
+        final DurationHistory history = new DurationHistory(new File(file));
+        if (history.file.isFile()) {
+            final Properties properties = new Properties();
+            try (InputStream inputStream = Files.newInputStream(history.file.toPath())) {
+                properties.load(inputStream);
+                for (final String name : properties.stringPropertyNames()) {
+                    history.durations.put(name, Double.valueOf(properties.getProperty(name)));
+                }
+            } catch (final IOException | NumberFormatException e) {
+                logger.warn("Ignoring unreadable duration history {}: {}", file, e.getMessage());
+                history.durations.clear();
+            }
+        }
+        return history;
+    }
+
+    /**
+     * @return Whether any durations have been recorded
+     */
+    public boolean isEmpty() {
+        return durations.isEmpty();
+    }
+
+    /**
+     * Gets the smoothed duration of a feature
+     * @param featurePath Path of the feature, either classpath:..., a file path or a report uri
+     * @return Duration in milliseconds (or null if there is no history for the feature)
+     */
+    public Double getFeatureDuration(final String featurePath) {
+        return find(FEATURE_PREFIX, normalise(featurePath), "");
+    }
+
+    /**
+     * Gets the smoothed duration of a scenario, including the Background of its feature. Safe to call from several
+     * threads while a run is in progress, as the history is only changed once the run has finished.
+     * @param featurePath Path of the feature, either classpath:..., a file path or a report uri
+     * @param scenarioName Name of the scenario
+     * @return Duration in milliseconds (or null if there is no history for the scenario)
+     */
+    public Double getScenarioDuration(final String featurePath, final String scenarioName) {
+        return find(SCENARIO_PREFIX, normalise(featurePath), SCENARIO_SEPARATOR + scenarioName);
+    }
+
+    private Double find(final String prefix, final String featureKey, final String suffix) {
+        final Double duration = durations.get(prefix + featureKey + suffix);
+        if (duration != null) {
+            return duration;
+        }
+        // File system paths and report uris may be relative to different directories - match on the trailing path
+        for (final Map.Entry<String, Double> entry : durations.entrySet()) {
+            final String name = entry.getKey();
+            if (name.startsWith(prefix) && name.endsWith(suffix)
+                    && name.length() >= prefix.length() + suffix.length()) {
+                final String recorded = name.substring(prefix.length(), name.length() - suffix.length());
+                if (samePath(featureKey, recorded)) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Orders features longest first. Features without history are given the average duration. The features are
+     * returned unchanged (file order) when there is no history at all, or if they cannot be read.
+     * @param featurePaths Feature folders (or files), as given to Karate
+     * @return Paths of individual features, longest first
+     */
+    public List<String> order(final List<String> featurePaths) {
+        if (isEmpty()) {
+            return featurePaths;
+        }
+        final List<String> features;
+        try {
+            features = FeatureSharder.findFeatures(featurePaths).stream()
+                    .map(FeatureSharder.Feature::getPath)
+                    .collect(Collectors.toList());
+        } catch (final IOException e) {
+            logger.warn("Unable to order features by duration, running them in file order: {}", e.getMessage());
+            return featurePaths;
+        }
+
+        final Map<String, Double> estimates = new TreeMap<>();
+        double total = 0;
+        int known = 0;
+        for (final String feature : features) {
+            final Double duration = getFeatureDuration(feature);
+            if (duration != null) {
+                estimates.put(feature, duration);
+                total += duration;
+                known++;
+            }
+        }
+        final double average = (known == 0) ? 0 : total / known;
+
+        final List<String> ordered = new ArrayList<>(features);
+        // Stable, so features with the same estimate stay in file order
+        ordered.sort(Comparator.comparingDouble((String feature) -> estimates.getOrDefault(feature, average)).reversed());
+        logger.info("Ordered {} features longest first ({} with history)", ordered.size(), known);
+        return ordered;
+    }
+
+    /**
+     * Removes the durations of features (and their scenarios) within the feature folders which no longer exist, e.g.
+     * after a feature is renamed. Durations of features in other folders (used by other runners), or in folders whose
+     * features cannot be listed (e.g. within a jar), are kept.
+     * @param featurePaths Feature folders (or files), as given to Karate
+     * @return Number of durations removed
+     * @throws IOException if the features cannot be read
+     */
+    public int prune(final List<String> featurePaths) throws IOException {
+        final List<String> roots = featurePaths.stream().map(DurationHistory::normalise).collect(Collectors.toList());
+        final List<String> features = FeatureSharder.findFeatures(featurePaths).stream()
+                .map(feature -> normalise(feature.getPath()))
+                .collect(Collectors.toList());
+        final List<String> unlisted = features.stream()
+                .filter(feature -> !feature.endsWith(FEATURE_EXTENSION))
+                .collect(Collectors.toList());
+
+        int removed = 0;
+        final Iterator<String> keys = durations.keySet().iterator();
+        while (keys.hasNext()) {
+            final String feature = getFeature(keys.next());
+            if (feature != null && isWithin(feature, roots) && !isWithin(feature, unlisted)
+                    && features.stream().noneMatch(current -> samePath(current, feature))) {
+                keys.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            logger.info("Removed {} durations of features which no longer exist", removed);
+        }
+        return removed;
+    }
+
+    /**
+     * @return Feature of a feature or scenario duration key (or null if not a duration key)
+     */
+    private static String getFeature(final String key) {
+        if (key.startsWith(FEATURE_PREFIX)) {
+            return key.substring(FEATURE_PREFIX.length());
+        }
+        if (key.startsWith(SCENARIO_PREFIX) && key.contains(SCENARIO_SEPARATOR)) {
+            return key.substring(SCENARIO_PREFIX.length(), key.indexOf(SCENARIO_SEPARATOR));
+        }
+        return null;
+    }
+
+    /**
+     * Whether a feature is within one of the feature folders (or is one of the feature files)
+     */
+    private static boolean isWithin(final String feature, final List<String> roots) {
+        for (final String root : roots) {
+            final String folder = trimSlashes(root);
+            for (int end = feature.indexOf('/'); end >= 0; end = feature.indexOf('/', end + 1)) {
+                if (samePath(folder, feature.substring(0, end))) {
+                    return true;
+                }
+            }
+            if (samePath(folder, feature)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records the durations within the JSON reports written since a run started
+     * @param reportDir Directory containing the Karate JSON reports
+     * @param sinceMillis Start time of the run - older reports (from previous runs) are ignored
+     * @return Number of features recorded
+     * @throws IOException if the report directory cannot be read
+     */
+    public int record(final String reportDir, final long sinceMillis) throws IOException {
+        final Path dir = Paths.get(reportDir);
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        final List<Path> reports;
+        try (Stream<Path> files = Files.list(dir)) {
+            reports = files.filter(path -> path.toString().endsWith(".json") && path.toFile().lastModified() >= sinceMillis)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        int features = 0;
+        for (final Path report : reports) {
+            try (Reader reader = Files.newBufferedReader(report, StandardCharsets.UTF_8)) {
+                final JsonReport[] featureReports = gson.fromJson(reader, JsonReport[].class);
+                if (featureReports == null) continue;
+                for (final JsonReport featureReport : featureReports) {
+                    if (record(featureReport)) {
+                        features++;
+                    }
+                }
+            } catch (final JsonParseException e) {
+                logger.warn("Ignoring unreadable report {}: {}", report, e.getMessage());
+            }
+        }
+        return features;
+    }
+
+    private boolean record(final JsonReport featureReport) {
+        if (featureReport.getUri() == null || featureReport.getElements() == null) {
+            return false;
+        }
+        final String feature = normalise(featureReport.getUri());
+        double featureMillis = 0;
+        // The Background is reported before each scenario, and runs as part of it
+        double backgroundMillis = 0;
+        for (final Element element : featureReport.getElements()) {
+            if (element.getSteps() == null) continue;
+            long nanos = 0;
+            for (final Step step : element.getSteps()) {
+                if (step.getResult() != null && step.getResult().getDuration() != null) {
+                    nanos += step.getResult().getDuration();
+                }
+            }
+            final double millis = nanos / 1e6;
+            featureMillis += millis;
+            if ("background".equalsIgnoreCase(element.getType())) {
+                backgroundMillis = millis;
+            } else {
+                update(SCENARIO_PREFIX + feature + SCENARIO_SEPARATOR + element.getName(), backgroundMillis + millis);
+                backgroundMillis = 0;
+            }
+        }
+        update(FEATURE_PREFIX + feature, featureMillis);
+        return true;
+    }
+
+    private void update(final String key, final double millis) {
+        final Double previous = durations.get(key);
+        durations.put(key, (previous == null) ? millis : SMOOTHING * millis + (1 - SMOOTHING) * previous);
+    }
+
+    /**
+     * Saves the history
+     * @throws IOException if the file cannot be written
+     */
+    public void save() throws IOException {
+        final File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Unable to create directory for " + file);
+        }
+        final Properties properties = new Properties();
+        for (final Map.Entry<String, Double> entry : durations.entrySet()) {
+            properties.setProperty(entry.getKey(), String.format(Locale.ROOT, "%.1f", entry.getValue()));
+        }
+        try (OutputStream outputStream = Files.newOutputStream(file.toPath())) {
+            properties.store(outputStream, "Feature and scenario durations (milliseconds)");
+        }
+    }
+
+    /**
+     * Whether two normalised feature paths are the same feature, allowing for file system paths and report uris
+     * relative to different directories
+     */
+    private static boolean samePath(final String path, final String other) {
+        return path.equals(other) || path.endsWith("/" + other) || other.endsWith("/" + path);
+    }
+
+    private static String trimSlashes(final String path) {
+        String trimmed = path;
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    /**
+     * Converts classpath:features/a.feature, /abs/path/features/a.feature and features/a.feature to a comparable form
+     */
+    static String normalise(final String path) {
+        String key = path.startsWith(CLASSPATH_PREFIX) ? path.substring(CLASSPATH_PREFIX.length()) : path;
+        key = key.replace('\\', '/');
+        while (key.startsWith("/")) {
+            key = key.substring(1);
+        }
+        return key;
+    }
+}
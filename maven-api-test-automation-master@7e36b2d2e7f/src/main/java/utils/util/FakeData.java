@@ -3,6 +3,7 @@ package utils.util;
 import com.github.javafaker.Faker;
 
 import java.util.Locale;
+import java.util.Random;
 
 /**
  * FakeData
@@ -12,16 +13,34 @@ import java.util.Locale;
  */
 public class FakeData extends Faker {
 
+  public static final Locale DEFAULT_LOCALE = new Locale("en-AU");
+
+  // Used by every Faker generator, so reseeding it makes all generated values reproducible
+  private final Random randomness;
+
   public FakeData() {
-    super(new Locale("en-AU"));
+    this(DEFAULT_LOCALE);
   }
 
   public FakeData(final String language) {
-    super(new Locale(language));
+    this(new Locale(language));
   }
 
   public FakeData(final Locale locale) {
-    super(locale);
+    this(locale, new Random());
+  }
+
+  public FakeData(final Locale locale, final Random random) {
+    super(locale, random);
+    this.randomness = random;
+  }
+
+  /**
+   * Reseeds the random number generator used by every generator of this instance
+   * @param seed Seed
+   */
+  public void reseed(final long seed) {
+    randomness.setSeed(seed);
   }
 
   public int random(final int max) {
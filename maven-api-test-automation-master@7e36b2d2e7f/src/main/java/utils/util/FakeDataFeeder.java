@@ -0,0 +1,103 @@
+package utils.util;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FakeDataFeeder
+ *
+ * Circular feeder over a JSON Lines file written by FakeDataRecords. Lines are streamed from the file (it is never
+ * loaded into memory) and reading starts again from the first line after the last one, so the feeder never runs out.
+ * Thread safe, so one feeder can be shared by every Gatling virtual user or parallel Karate scenario.
+ *
+ * Gatling: feed(feeder) puts each record in the session under the attribute name given to the constructor.
+ * Karate: nextUser(fakeData) returns the next record of the file set by apitest.fakedata.records, or generates one
+ * when that property is not set.
+ */
+public class FakeDataFeeder implements Iterator<Map<String, Object>>, Closeable {
+
+  private static final Map<Path, FakeDataFeeder> shared = new ConcurrentHashMap<>();
+
+  private final Path file;
+  private final String attributeName;
+  private BufferedReader reader;
+
+  /**
+   * @param file JSON Lines file
+   * @param attributeName Name of the Gatling session attribute each record is fed as
+   */
+  public FakeDataFeeder(final Path file, final String attributeName) {
+    this.file = file;
+    this.attributeName = attributeName;
+  }
+
+  /**
+   * @param file JSON Lines file
+   * @return Feeder shared by every caller for the same file, feeding records as the "user" attribute
+   */
+  public static FakeDataFeeder shared(final String file) {
+    return shared.computeIfAbsent(Paths.get(file).toAbsolutePath().normalize(), path -> new FakeDataFeeder(path, "user"));
+  }
+
+  /**
+   * Gets a user record for a Karate scenario, e.g. * json values = FakeDataFeeder.nextUser(fakeData)
+   * @param fakeData FakeData used to generate the record when apitest.fakedata.records is not set
+   * @return User record as JSON
+   */
+  public static String nextUser(final FakeData fakeData) {
+    final String records = Support.getSettings().getFakeDataRecords();
+    return (records == null) ? FakeDataRecords.userJson(fakeData) : shared(records).nextLine();
+  }
+
+  @Override
+  public boolean hasNext() {
+    return true;
+  }
+
+  @Override
+  public Map<String, Object> next() {
+    return Collections.singletonMap(attributeName, nextLine());
+  }
+
+  /**
+   * @return Next line of the file, starting again from the first line after the last one
+   */
+  public synchronized String nextLine() {
+    try {
+      for (int attempt = 0; attempt < 2; attempt++) {
+        if (reader == null) {
+          reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (!line.isEmpty()) {
+            return line;
+          }
+        }
+        reader.close();
+        reader = null;
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Unable to read " + file, e);
+    }
+    throw new IllegalStateException("No records in " + file);
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (reader != null) {
+      reader.close();
+      reader = null;
+    }
+  }
+}
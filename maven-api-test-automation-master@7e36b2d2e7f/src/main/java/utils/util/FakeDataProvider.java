@@ -0,0 +1,125 @@
+package utils.util;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * FakeDataProvider
+ *
+ * Provides one FakeData instance per thread and locale. Constructing a FakeData (Faker) loads and parses the locale
+ * YAML files, so reusing an instance avoids that cost for every scenario. Instances are thread confined, so parallel
+ * scenarios never share (or contend on) the same random number generator.
+ *
+ * When the apitest.fakedata.seed system property is set, generated values are reproducible: the thread's instance is
+ * reseeded for each scenario from the seed and the scenario's identity, so each scenario gets the same values whichever
+ * thread runs it, and in whatever order. The identity is the feature, line and example index given to forScenarioRow()
+ * (by FakeDataHook, before the scenario starts), so each Examples row of a Scenario Outline gets its own values.
+ */
+public final class FakeDataProvider {
+
+  private static final Map<Locale, ThreadLocal<FakeData>> instances = new ConcurrentHashMap<>();
+  // Identity of the scenario (row) running on each thread, set by forScenarioRow()
+  private static final ThreadLocal<String> rows = new ThreadLocal<>();
+
+  private FakeDataProvider() {
+    // Static methods only - do not allow this class to be instantiated
+    throw new IllegalStateException();
+  }
+
+  /**
+   * @return FakeData for the current thread, using the default (en-AU) locale
+   */
+  public static FakeData get() {
+    return get(FakeData.DEFAULT_LOCALE);
+  }
+
+  /**
+   * @param language Language (locale) name, e.g. "en-AU"
+   * @return FakeData for the current thread and language
+   */
+  public static FakeData get(final String language) {
+    return get(new Locale(language));
+  }
+
+  /**
+   * @param locale Locale
+   * @return FakeData for the current thread and locale
+   */
+  public static FakeData get(final Locale locale) {
+    return instances.computeIfAbsent(locale, key -> ThreadLocal.withInitial(() -> create(key))).get();
+  }
+
+  /**
+   * Gets the FakeData for the current thread, reseeded for a scenario when a seed is configured
+   * @param scenarioKey Key identifying the scenario, e.g. feature file name and scenario name
+   * @return FakeData for the current thread, using the default (en-AU) locale
+   */
+  public static FakeData forScenario(final String scenarioKey) {
+    return forScenario(scenarioKey, FakeData.DEFAULT_LOCALE);
+  }
+
+  /**
+   * Gets the FakeData for the current thread, reseeded for a scenario when a seed is configured. The identity given to
+   * forScenarioRow() for this thread is used in preference to the key, which cannot tell the rows of an outline apart.
+   * @param scenarioKey Key identifying the scenario, e.g. feature file name and scenario name
+   * @param locale Locale
+   * @return FakeData for the current thread and locale
+   */
+  public static FakeData forScenario(final String scenarioKey, final Locale locale) {
+    final FakeData fakeData = get(locale);
+    final Long seed = Support.getSettings().getFakeDataSeed();
+    if (seed != null) {
+      final String row = rows.get();
+      fakeData.reseed(deriveSeed(seed, row == null ? scenarioKey : row, 0));
+    }
+    return fakeData;
+  }
+
+  /**
+   * Sets the identity of the scenario (Examples row) about to run on the current thread, reseeding the thread's
+   * FakeData (default locale) for it when a seed is configured
+   * @param featurePath Path of the feature, e.g. features/api-posts/posts.feature
+   * @param line Line of the scenario within the feature
+   * @param exampleIndex Index of the Examples row, or -1 if the scenario is not an outline
+   * @return FakeData for the current thread, using the default (en-AU) locale
+   */
+  public static FakeData forScenarioRow(final String featurePath, final int line, final int exampleIndex) {
+    rows.set(featurePath + ":" + line + ":" + exampleIndex);
+    return forScenario(featurePath, FakeData.DEFAULT_LOCALE);
+  }
+
+  /**
+   * Clears the identity set by forScenarioRow() once the scenario has completed
+   */
+  public static void endScenarioRow() {
+    rows.remove();
+  }
+
+  private static FakeData create(final Locale locale) {
+    final Long seed = Support.getSettings().getFakeDataSeed();
+    if (seed == null) {
+      return new FakeData(locale);
+    }
+    return new FakeData(locale, new Random(deriveSeed(seed, Thread.currentThread().getName(), 0)));
+  }
+
+  /**
+   * Derives an independent seed from a seed, key and occurrence (FNV-1a hash of the key, mixed using SplitMix64)
+   */
+  static long deriveSeed(final long seed, final String key, final int occurrence) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    return mix(seed ^ mix(hash + occurrence));
+  }
+
+  private static long mix(long value) {
+    value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+    value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+    return value ^ (value >>> 31);
+  }
+}
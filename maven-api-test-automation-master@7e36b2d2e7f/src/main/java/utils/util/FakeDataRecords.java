@@ -0,0 +1,178 @@
+package utils.util;
+
+import com.github.javafaker.Address;
+import com.github.javafaker.Company;
+import com.github.javafaker.Name;
+import com.google.gson.Gson;
+import com.intuit.karate.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * FakeDataRecords
+ *
+ * Pre-generates user records (the payload posted by users.feature and createNewStudent.feature) to a JSON Lines file,
+ * one compact JSON object per line, so load tests can read them using FakeDataFeeder instead of generating them inside
+ * the measured scenario.
+ *
+ * Usage: FakeDataRecords [file] [count] [threads] [seed]
+ * (defaults: ./target/fakedata/users.jsonl, 10000 records, available processors, apitest.fakedata.seed)
+ */
+public final class FakeDataRecords {
+
+  protected static Logger logger = new Logger();
+
+  public static final String DEFAULT_FILE = "./target/fakedata/users.jsonl";
+
+  // Records are generated in chunks, each with its own FakeData, and written in chunk order
+  private static final int CHUNK_SIZE = 1000;
+
+  private static final Gson gson = new Gson();
+
+  private FakeDataRecords() {
+    // Static methods only - do not allow this class to be instantiated
+    throw new IllegalStateException();
+  }
+
+  public static void main(final String[] args) throws IOException {
+    final Path file = Paths.get(args.length > 0 ? args[0] : DEFAULT_FILE);
+    final int count = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+    final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    final Long seed = args.length > 3 ? Long.valueOf(args[3]) : Support.getSettings().getFakeDataSeed();
+
+    final long start = System.nanoTime();
+    generate(file, count, threads, seed);
+    logger.info("Generated {} records to {} in {} s", count, file, String.format("%.3f", (System.nanoTime() - start) / 1e9));
+  }
+
+  /**
+   * Generates user records to a file, replacing any existing file
+   * @param file JSON Lines file
+   * @param count Number of records
+   * @param threads Number of threads generating records
+   * @param seed Seed, so the same file is generated every time (or null for random records)
+   * @throws IOException if the file cannot be written
+   */
+  public static void generate(final Path file, final int count, final int threads, final Long seed) throws IOException {
+    final Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    final int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    final ExecutorService executor = Executors.newFixedThreadPool(Math.max(threads, 1));
+    try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      // Only a few chunks are queued ahead of the writer, so memory use does not grow with the count
+      final Deque<Future<List<String>>> pending = new ArrayDeque<>();
+      int next = 0;
+      while (next < chunks || !pending.isEmpty()) {
+        while (next < chunks && pending.size() < Math.max(threads, 1) * 2) {
+          final int chunk = next++;
+          final int size = Math.min(CHUNK_SIZE, count - chunk * CHUNK_SIZE);
+          pending.add(executor.submit(() -> generateChunk(chunk, size, seed)));
+        }
+        for (final String line : pending.remove().get()) {
+          writer.write(line);
+          writer.newLine();
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted generating " + file, e);
+    } catch (final ExecutionException e) {
+      throw new IOException("Unable to generate " + file, e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Generates the user records file if it does not already contain at least the required number of records
+   * @param file JSON Lines file
+   * @param count Minimum number of records
+   * @return The file
+   * @throws IOException if the file cannot be read or written
+   */
+  public static Path ensure(final Path file, final int count) throws IOException {
+    if (Files.isRegularFile(file)) {
+      try (Stream<String> lines = Files.lines(file, StandardCharsets.UTF_8)) {
+        if (lines.limit(count).count() >= count) {
+          return file;
+        }
+      }
+    }
+    generate(file, count, Runtime.getRuntime().availableProcessors(), Support.getSettings().getFakeDataSeed());
+    return file;
+  }
+
+  private static List<String> generateChunk(final int chunk, final int size, final Long seed) {
+    final Random random = (seed == null) ? new Random() : new Random(FakeDataProvider.deriveSeed(seed, "records", chunk));
+    final FakeData fakeData = new FakeData(FakeData.DEFAULT_LOCALE, random);
+    final List<String> lines = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      lines.add(userJson(fakeData));
+    }
+    return lines;
+  }
+
+  /**
+   * Generates a user record
+   * @param fakeData FakeData used to generate the values
+   * @return User record, in the format posted to /users
+   */
+  public static Map<String, Object> user(final FakeData fakeData) {
+    final Name name = fakeData.name();
+    final Address address = fakeData.address();
+    final Company company = fakeData.company();
+
+    final Map<String, Object> geo = new LinkedHashMap<>();
+    geo.put("lat", address.latitude());
+    geo.put("lng", address.longitude());
+
+    final Map<String, Object> userAddress = new LinkedHashMap<>();
+    userAddress.put("street", address.streetAddress());
+    userAddress.put("suite", "Penthouse");
+    userAddress.put("city", address.city());
+    userAddress.put("zipcode", address.zipCode());
+    userAddress.put("geo", geo);
+
+    final Map<String, Object> userCompany = new LinkedHashMap<>();
+    userCompany.put("name", company.name());
+    userCompany.put("catchPhrase", company.catchPhrase());
+    userCompany.put("bs", company.bs());
+
+    final Map<String, Object> user = new LinkedHashMap<>();
+    user.put("name", name.fullName());
+    user.put("username", name.username());
+    user.put("email", fakeData.internet().emailAddress());
+    user.put("address", userAddress);
+    user.put("phone", fakeData.phoneNumber().cellPhone());
+    user.put("website", company.url());
+    user.put("company", userCompany);
+    return user;
+  }
+
+  /**
+   * @param fakeData FakeData used to generate the values
+   * @return User record as compact JSON
+   */
+  public static String userJson(final FakeData fakeData) {
+    return gson.toJson(user(fakeData));
+  }
+}
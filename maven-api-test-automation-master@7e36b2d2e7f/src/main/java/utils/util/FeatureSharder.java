@@ -0,0 +1,347 @@
+package utils.util;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.intuit.karate.Logger;
+
+/**
+ * Splits the features found in the apitest.feature.paths folders into shards, so a run can be spread over several
+ * JVMs or CI agents (apitest.shard.index and apitest.shard.count)
+ *
+ * Every agent must compute the same shards, so features are ordered by path and assigned using the longest processing
+ * time rule: largest feature first (by number of scenarios, counting each Examples row of a Scenario Outline) to the
+ * shard with the fewest scenarios so far, ties going to the lowest shard index. Only the scenarios selected by the
+ * Karate tags of the run are counted, as those are the only ones which will run.
+ */
+public final class FeatureSharder {
+    protected static Logger logger = new Logger();
+
+    private static final String CLASSPATH_PREFIX = "classpath:";
+    private static final String FEATURE_EXTENSION = ".feature";
+
+    private FeatureSharder() {
+        // Static methods only - do not allow this class to be instantiated
+        throw new IllegalStateException();
+    }
+
+    /**
+     * A feature file and the number of scenarios it contains
+     */
+    public static final class Feature {
+        private final String path;
+        private final int scenarios;
+
+        Feature(final String path, final int scenarios) {
+            this.path = path;
+            this.scenarios = scenarios;
+        }
+
+        /**
+         * @return Path of the feature, in the form used by Karate (classpath:... or a file path)
+         */
+        public String getPath() {
+            return path;
+        }
+
+        public int getScenarios() {
+            return scenarios;
+        }
+
+        @Override
+        public String toString() {
+            return path + " (" + scenarios + ")";
+        }
+    }
+
+    /**
+     * Gets the features of one shard
+     * @param featurePaths Feature folders (or files), as given to Karate
+     * @param index Index of the shard (0 to count - 1)
+     * @param count Number of shards
+     * @return Paths of the features in the shard, in the form used by Karate
+     * @throws IOException if the features cannot be read
+     */
+    public static List<String> select(final List<String> featurePaths, final int index, final int count) throws IOException {
+        return select(featurePaths, Collections.emptyList(), index, count);
+    }
+
+    /**
+     * Gets the features of one shard, balanced on the scenarios selected by the tags
+     * @param featurePaths Feature folders (or files), as given to Karate
+     * @param tags Karate tags of the run, e.g. ["@POSTS-API,@USERS-API", "~@ignore"]
+     * @param index Index of the shard (0 to count - 1)
+     * @param count Number of shards
+     * @return Paths of the features in the shard, in the form used by Karate
+     * @throws IOException if the features cannot be read
+     */
+    public static List<String> select(final List<String> featurePaths, final List<String> tags, final int index,
+                                      final int count) throws IOException {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Invalid shard " + index + " of " + count);
+        }
+        final List<Feature> shard = shard(findFeatures(featurePaths, tags), count).get(index);
+        int scenarios = 0;
+        for (final Feature feature : shard) {
+            scenarios += feature.getScenarios();
+        }
+        logger.info("Shard {} of {}: {} features, {} scenarios", index, count, shard.size(), scenarios);
+        return shard.stream().map(Feature::getPath).collect(Collectors.toList());
+    }
+
+    /**
+     * Assigns features to shards, largest first, each to the shard with the fewest scenarios
+     * @param features Features
+     * @param count Number of shards
+     * @return Features of each shard, in path order
+     */
+    public static List<List<Feature>> shard(final List<Feature> features, final int count) {
+        final List<Feature> ordered = new ArrayList<>(features);
+        ordered.sort(Comparator.comparing(Feature::getPath));
+        // Stable, so features with the same number of scenarios stay in path order
+        ordered.sort(Comparator.comparingInt(Feature::getScenarios).reversed());
+
+        final List<List<Feature>> shards = new ArrayList<>(count);
+        final int[] totals = new int[count];
+        for (int i = 0; i < count; i++) {
+            shards.add(new ArrayList<>());
+        }
+        for (final Feature feature : ordered) {
+            int smallest = 0;
+            for (int i = 1; i < count; i++) {
+                if (totals[i] < totals[smallest]) {
+                    smallest = i;
+                }
+            }
+            shards.get(smallest).add(feature);
+            totals[smallest] += feature.getScenarios();
+        }
+        for (final List<Feature> shard : shards) {
+            shard.sort(Comparator.comparing(Feature::getPath));
+        }
+        return shards;
+    }
+
+    /**
+     * Finds the feature files in folders (searched recursively) or given individually
+     * @param featurePaths Feature folders (or files), either classpath:... or file system paths
+     * @return Features, keyed and ordered by path (each feature only once)
+     * @throws IOException if the features cannot be read
+     */
+    public static List<Feature> findFeatures(final List<String> featurePaths) throws IOException {
+        return findFeatures(featurePaths, Collections.emptyList());
+    }
+
+    /**
+     * Finds the feature files in folders (searched recursively) or given individually
+     * @param featurePaths Feature folders (or files), either classpath:... or file system paths
+     * @param tags Karate tags of the run; only the scenarios they select are counted
+     * @return Features, keyed and ordered by path (each feature only once). A classpath folder which cannot be listed
+     * (e.g. within a jar) is returned as a single feature with one scenario.
+     * @throws IOException if the features cannot be read
+     */
+    public static List<Feature> findFeatures(final List<String> featurePaths, final List<String> tags)
+            throws IOException {
+        final Map<String, Feature> features = new TreeMap<>();
+        for (final String featurePath : featurePaths) {
+            if (featurePath.startsWith(CLASSPATH_PREFIX)) {
+                final String name = trimSlashes(featurePath.substring(CLASSPATH_PREFIX.length()));
+                final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                final List<URL> urls = Collections.list(loader.getResources(name));
+                final URL unlisted = urls.stream().filter(url -> !"file".equals(url.getProtocol())).findFirst().orElse(null);
+                if (unlisted != null) {
+                    // e.g. within a jar, whose features cannot be listed - the whole path is one unit of weight 1
+                    logger.warn("Unable to list features within {}, sharding {} as a single feature", unlisted, featurePath);
+                    final String path = CLASSPATH_PREFIX + name;
+                    features.putIfAbsent(path, new Feature(path, 1));
+                    continue;
+                }
+                for (final URL url : urls) {
+                    final Path root = toPath(url);
+                    for (final Path file : list(root)) {
+                        final String relative = root.relativize(file).toString().replace('\\', '/');
+                        final String path = CLASSPATH_PREFIX + (relative.isEmpty() ? name : name + "/" + relative);
+                        features.putIfAbsent(path, read(path, file, tags));
+                    }
+                }
+            } else {
+                for (final Path file : list(Paths.get(featurePath))) {
+                    final String path = file.toAbsolutePath().normalize().toString();
+                    features.putIfAbsent(path, read(path, file, tags));
+                }
+            }
+        }
+        return Collections.unmodifiableList(new ArrayList<>(features.values()));
+    }
+
+    /**
+     * Counts the scenarios of a feature, counting each Examples row of a Scenario Outline as one scenario
+     * @param lines Lines of the feature file
+     * @return Number of scenarios
+     */
+    static int countScenarios(final List<String> lines) {
+        return countScenarios(lines, Collections.emptyList());
+    }
+
+    /**
+     * Counts the scenarios of a feature selected by tags, counting each Examples row of a Scenario Outline as one
+     * scenario. A scenario has the tags of the feature, its own tags and (for an Examples row) those of its Examples.
+     * @param lines Lines of the feature file
+     * @param tags Karate tags of the run
+     * @return Number of scenarios selected
+     */
+    static int countScenarios(final List<String> lines, final List<String> tags) {
+        int scenarios = 0;
+        Set<String> featureTags = Collections.emptySet();
+        Set<String> pendingTags = new HashSet<>();
+        // Tags of the current Scenario Outline and of its current Examples, null outside an outline
+        Set<String> outlineTags = null;
+        Set<String> examplesTags = null;
+        int outlineRows = 0;
+        boolean hasRows = false;
+        boolean inExamples = false;
+        boolean header = false;
+        for (final String line : lines) {
+            final String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            if (trimmed.startsWith("@")) {
+                pendingTags.addAll(parseTags(trimmed));
+            } else if (trimmed.startsWith("Feature:")) {
+                featureTags = pendingTags;
+                pendingTags = new HashSet<>();
+            } else if (trimmed.startsWith("Scenario:") || trimmed.startsWith("Scenario Outline:")
+                    || trimmed.startsWith("Scenario Template:")) {
+                if (outlineTags != null) {
+                    scenarios += hasRows ? outlineRows : (matches(outlineTags, tags) ? 1 : 0);
+                }
+                final Set<String> scenarioTags = new HashSet<>(featureTags);
+                scenarioTags.addAll(pendingTags);
+                pendingTags = new HashSet<>();
+                if (trimmed.startsWith("Scenario:")) {
+                    outlineTags = null;
+                    if (matches(scenarioTags, tags)) {
+                        scenarios++;
+                    }
+                } else {
+                    outlineTags = scenarioTags;
+                    outlineRows = 0;
+                    hasRows = false;
+                }
+                inExamples = false;
+            } else if (outlineTags != null && (trimmed.startsWith("Examples:") || trimmed.startsWith("Scenarios:"))) {
+                examplesTags = new HashSet<>(outlineTags);
+                examplesTags.addAll(pendingTags);
+                pendingTags = new HashSet<>();
+                inExamples = true;
+                header = true;
+            } else if (inExamples && trimmed.startsWith("|")) {
+                if (header) {
+                    header = false;
+                } else {
+                    hasRows = true;
+                    if (matches(examplesTags, tags)) {
+                        outlineRows++;
+                    }
+                }
+            } else {
+                inExamples = false;
+            }
+        }
+        if (outlineTags != null) {
+            scenarios += hasRows ? outlineRows : (matches(outlineTags, tags) ? 1 : 0);
+        }
+        return scenarios;
+    }
+
+    /**
+     * Evaluates Karate tags against the tags of a scenario: every entry must match, where an entry matches if any of
+     * its comma separated tags does, and ~@tag matches if the scenario does not have @tag
+     * @param scenarioTags Tags of the scenario, including those of its feature
+     * @param tags Karate tags of the run
+     * @return true if the scenario is selected
+     */
+    static boolean matches(final Set<String> scenarioTags, final List<String> tags) {
+        for (final String entry : tags) {
+            boolean matched = false;
+            for (final String tag : entry.split(",")) {
+                final String trimmed = tag.trim();
+                final boolean not = trimmed.startsWith("~");
+                if (scenarioTags.contains(not ? trimmed.substring(1) : trimmed) != not) {
+                    matched = true;
+                    break;
+                }
+            }
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> parseTags(final String line) {
+        final List<String> tags = new ArrayList<>();
+        for (final String token : line.split("\\s+")) {
+            if (token.startsWith("#")) {
+                break;
+            }
+            if (token.startsWith("@")) {
+                tags.add(token);
+            }
+        }
+        return tags;
+    }
+
+    private static Feature read(final String path, final Path file, final List<String> tags) throws IOException {
+        return new Feature(path, countScenarios(Files.readAllLines(file, StandardCharsets.UTF_8), tags));
+    }
+
+    private static List<Path> list(final Path root) throws IOException {
+        if (Files.isRegularFile(root)) {
+            return root.toString().endsWith(FEATURE_EXTENSION) ? Collections.singletonList(root) : Collections.emptyList();
+        }
+        if (!Files.isDirectory(root)) {
+            throw new IOException("Feature path does not exist: " + root);
+        }
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(file -> Files.isRegularFile(file) && file.toString().endsWith(FEATURE_EXTENSION))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static Path toPath(final URL url) throws IOException {
+        try {
+            return Paths.get(url.toURI());
+        } catch (final URISyntaxException e) {
+            throw new IOException("Invalid feature path " + url, e);
+        }
+    }
+
+    private static String trimSlashes(final String value) {
+        String trimmed = value;
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+}
@@ -11,6 +11,8 @@ import org.apache.commons.lang3.StringUtils;
 public class Support {
     protected static Logger logger = new Logger();
 
+    private static volatile ApiTestSettings settings;
+
     private Support() {
         // Static methods only - do not allow this class to be instantiated
         throw new IllegalStateException();
@@ -24,7 +26,7 @@ public class Support {
      * @param defaultValue Default value, if property value is blank 
      * @return Property value, or default if not defined or blank
      */
-    private static String getPropertyValue(final String name, final String defaultValue) {
+    static String getPropertyValue(final String name, final String defaultValue) {
 
         String value = System.getProperty(name);
 
@@ -35,6 +37,38 @@ public class Support {
         return value;
     }
 
+    /**
+     * Retrieves the apitest.* system property values, resolved and logged once per JVM
+     * NOTE: Use for values read repeatedly (e.g. by karate-config.js for every scenario). Values set after the first
+     * call are only seen after refreshSettings() is called.
+     * @return Settings (the same instance until refreshSettings() is called)
+     */
+    public static ApiTestSettings getSettings() {
+        ApiTestSettings current = settings;
+        if (current == null) {
+            synchronized (Support.class) {
+                current = settings;
+                if (current == null) {
+                    current = refreshSettings();
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Resolves the apitest.* system property values again, replacing the settings returned by getSettings()
+     * @return New settings
+     */
+    public static synchronized ApiTestSettings refreshSettings() {
+        final ApiTestSettings current = ApiTestSettings.resolve();
+
+        logger.info("getSettings() = {}", current);
+
+        settings = current;
+        return current;
+    }
+
     /**
      * Retrieves system property value as a string
      * @param name Name of system property
@@ -91,7 +125,7 @@ public class Support {
      * @param value String value to parse
      * @return Boolean value (or null if value is not true or false)
      */
-    private static Boolean parseBoolean(final String value) {
+    static Boolean parseBoolean(final String value) {
         final boolean[] booleanValues = { true, false };
         for (final boolean booleanValue : booleanValues) {
             if (StringUtils.equalsIgnoreCase(value, Boolean.toString(booleanValue))) {
@@ -0,0 +1,120 @@
+package runner;
+
+import com.intuit.karate.Results;
+import com.intuit.karate.core.ExecutionContext;
+import com.intuit.karate.core.ExecutionHook;
+import com.intuit.karate.core.Feature;
+import com.intuit.karate.core.FeatureResult;
+import com.intuit.karate.core.PerfEvent;
+import com.intuit.karate.core.Scenario;
+import com.intuit.karate.core.ScenarioContext;
+import com.intuit.karate.core.ScenarioResult;
+import com.intuit.karate.core.Step;
+import com.intuit.karate.core.StepResult;
+import com.intuit.karate.http.HttpRequestBuilder;
+import utils.util.AdaptiveConcurrency;
+import utils.util.DurationHistory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Karate execution hook which only lets a scenario start when the AdaptiveConcurrency limit allows it
+ *
+ * Karate is given a pool of the maximum number of threads (apitest.threads.max, apitest.threads * 4 by default), and
+ * this hook decides how many of them run scenarios - so the real limit on parallel scenarios is this hook, not the
+ * pool, which would otherwise run up to four times as many scenarios as apitest.threads. Only
+ * top level scenarios are limited - scenarios of called features run within the caller's slot, as waiting for another
+ * slot could deadlock. Each scenario's latency is compared with its duration in the history of previous runs.
+ */
+public class AdaptiveConcurrencyHook implements ExecutionHook {
+
+    // Failures which suggest the environment is overloaded, rather than a test failing
+    private static final Pattern OVERLOADED = Pattern.compile(
+            "status code was: (502|503|504|429)|timed out|Connection reset|Connection refused", Pattern.CASE_INSENSITIVE);
+
+    private final AdaptiveConcurrency concurrency;
+    private final DurationHistory history;
+    private final ThreadLocal<Long> started = new ThreadLocal<>();
+
+    /**
+     * @param concurrency Concurrency limit
+     * @param history Durations of previous runs (or null, in which case only overload errors cut the limit)
+     */
+    public AdaptiveConcurrencyHook(final AdaptiveConcurrency concurrency, final DurationHistory history) {
+        this.concurrency = concurrency;
+        this.history = history;
+    }
+
+    @Override
+    public boolean beforeScenario(final Scenario scenario, final ScenarioContext context) {
+        if (context.callDepth > 0) {
+            return true;
+        }
+        try {
+            concurrency.acquire();
+        } catch (final InterruptedException e) {
+            // Fail the scenario rather than skip it (returning false), which would not be reported
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to start scenario " + scenario.getName(), e);
+        }
+        started.set(System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterScenario(final ScenarioResult result, final ScenarioContext context) {
+        final Long start = started.get();
+        if (context.callDepth > 0 || start == null) {
+            return;
+        }
+        started.remove();
+        final long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        final boolean overloaded = result.isFailed() && result.getError() != null
+                && OVERLOADED.matcher(String.valueOf(result.getError().getMessage())).find();
+        final Scenario scenario = result.getScenario();
+        final Double recordedMillis = (history == null) ? null
+                : history.getScenarioDuration(scenario.getFeature().getRelativePath(), scenario.getName());
+        concurrency.release(latencyMillis, recordedMillis, overloaded);
+    }
+
+    @Override
+    public boolean beforeFeature(final Feature feature, final ExecutionContext context) {
+        return true;
+    }
+
+    @Override
+    public void afterFeature(final FeatureResult result, final ExecutionContext context) {
+        // Nothing to do
+    }
+
+    @Override
+    public void beforeAll(final Results results) {
+        // Nothing to do
+    }
+
+    @Override
+    public void afterAll(final Results results) {
+        // Nothing to do
+    }
+
+    @Override
+    public boolean beforeStep(final Step step, final ScenarioContext context) {
+        return true;
+    }
+
+    @Override
+    public void afterStep(final StepResult result, final ScenarioContext context) {
+        // Nothing to do
+    }
+
+    @Override
+    public String getPerfEventName(final HttpRequestBuilder req, final ScenarioContext context) {
+        return null;
+    }
+
+    @Override
+    public void reportPerfEvent(final PerfEvent event) {
+        // Nothing to do
+    }
+}
@@ -2,6 +2,12 @@ package runner;
 
 import org.junit.Test;
 
+import java.io.IOException;
+
+/**
+ * @deprecated Run {@link ApiSuiteRunner} instead
+ */
+@Deprecated
 public class ApiPhotosRunner extends BaseRunner {
 
     public ApiPhotosRunner() {
@@ -9,7 +15,7 @@ public class ApiPhotosRunner extends BaseRunner {
     }
 
     @Test
-    public void run() {
+    public void run() throws IOException {
         runTests();
     }
 }
@@ -9,6 +9,10 @@ package runner;
 //        import utils.testrail.handlers.TestRailIntegrationImp;
 //        import java.io.IOException;
 
+/**
+ * @deprecated Run {@link ApiSuiteRunner} instead
+ */
+@Deprecated
 public class ApiShoppingcartRunner {
     final String path;
     final String tags;
@@ -0,0 +1,43 @@
+package runner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs the features of every API in a single Karate run, replacing the per-API runners (ApiUsersRunner etc.)
+ *
+ * All features are scheduled on one shared pool of threads, rather than one pool per API run one after another, and
+ * the reports are generated, and results uploaded to TestRail, once at the end of the run. Tags, threads, sharding
+ * etc. are controlled by the same system properties as TagBasedApiRunner.
+ */
+public class ApiSuiteRunner extends TagBasedApiRunner {
+
+    /**
+     * Feature folders of each API, previously run by the runner named alongside
+     */
+    public static final List<String> FEATURE_PATHS = Collections.unmodifiableList(Arrays.asList(
+            "classpath:features/api-photos",            // ApiPhotosRunner
+            "classpath:features/api-posts",             // ApiPostsRunner
+            "classpath:features/api-shoppingcart-v1",   // ApiShoppingcartRunner
+            "classpath:features/api-student",           // ApiCreateStudentRunner, TokenRunner
+            "classpath:features/api-todos",             // ApiTodosRunner
+            "classpath:features/api-users",             // ApiUsersRunner, ApiViewAllStudentsRunner, ApiViewStudentDetailsRunner
+            "classpath:features/api-vehicle"            // ApiVehicleRunner, mapDataRunner, testRunner
+    ));
+
+    /**
+     * Number of threads used by each of the per-API runners
+     */
+    private static final int DEFAULT_THREADS = 5;
+
+    @Override
+    protected String getDefaultFeaturePaths() {
+        return String.join(",", FEATURE_PATHS);
+    }
+
+    @Override
+    protected int getDefaultThreads() {
+        return DEFAULT_THREADS;
+    }
+}
@@ -2,6 +2,12 @@ package runner;
 
 import org.junit.Test;
 
+import java.io.IOException;
+
+/**
+ * @deprecated Run {@link ApiSuiteRunner} instead
+ */
+@Deprecated
 public class ApiUsersRunner extends BaseRunner {
 
     public ApiUsersRunner() {
@@ -9,7 +15,7 @@ public class ApiUsersRunner extends BaseRunner {
     }
 
     @Test
-    public void run() {
+    public void run() throws IOException {
         runTests();
     }
 }
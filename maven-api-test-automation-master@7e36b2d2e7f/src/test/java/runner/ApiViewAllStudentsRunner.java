@@ -4,13 +4,19 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import com.intuit.karate.junit4.Karate;
 
+import java.io.IOException;
+
+/**
+ * @deprecated Run {@link ApiSuiteRunner} instead
+ */
+@Deprecated
 @RunWith(Karate.class)
 public class ApiViewAllStudentsRunner extends BaseRunner {
     public ApiViewAllStudentsRunner() {
         super("classpath:features/api-users", "~@ignore", 5);
     }
     @Test
-    public void run() {
+    public void run() throws IOException {
         runTests();
     }
 }
@@ -3,13 +3,19 @@ package runner.student;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
+
+/**
+ * @deprecated Run {@link ApiSuiteRunner} instead
+ */
+@Deprecated
 @RunWith(Karate.class)
 public class ApiViewStudentDetailsRunner extends BaseRunner {
     public ApiViewStudentDetailsRunner() {
         super("classpath:features/api-users", "~@ignore", 5);
     }
     @Test
-    public void run() {
+    public void run() throws IOException {
         runTests();
     }
 }
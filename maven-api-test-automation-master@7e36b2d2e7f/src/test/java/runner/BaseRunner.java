@@ -2,13 +2,16 @@ package runner;
 
 import com.intuit.karate.Results;
 import com.intuit.karate.Runner;
-import org.junit.After;
 import org.junit.Assert;
-import utils.testrail.exceptions.NoTestRailUrlException;
-import utils.testrail.exceptions.ProjectNotFoundException;
 import utils.testrail.handlers.TestRailIntegrationImp;
 import java.io.IOException;
 
+/**
+ * Runs the features within a single folder, using its own pool of threads
+ *
+ * @deprecated Use {@link ApiSuiteRunner}, which runs the features of every API on one pool, with one report phase
+ */
+@Deprecated
 public class BaseRunner {
 
     final String path;
@@ -21,13 +24,9 @@ public class BaseRunner {
         this.threadCount = threadCount;
     }
 
-    @After
-    public void updateTestRail() throws ProjectNotFoundException, NoTestRailUrlException, IOException {
-        TestRailIntegrationImp.update();
-    }
-
-    protected void runTests() {
-        Results results = Runner.path(path).tags(tags).parallel(threadCount);
+    protected void runTests() throws IOException {
+        TestRailIntegrationImp.watch();
+        Results results = Runner.path(path).tags(tags).hook(new FakeDataHook()).parallel(threadCount);
         Assert.assertTrue(results.getErrorMessages(), results.getFailCount() == 0);
     }
 }
@@ -0,0 +1,80 @@
+package runner;
+
+import com.intuit.karate.Results;
+import com.intuit.karate.core.ExecutionContext;
+import com.intuit.karate.core.ExecutionHook;
+import com.intuit.karate.core.Feature;
+import com.intuit.karate.core.FeatureResult;
+import com.intuit.karate.core.PerfEvent;
+import com.intuit.karate.core.Scenario;
+import com.intuit.karate.core.ScenarioContext;
+import com.intuit.karate.core.ScenarioResult;
+import com.intuit.karate.core.Step;
+import com.intuit.karate.core.StepResult;
+import com.intuit.karate.http.HttpRequestBuilder;
+import utils.util.FakeDataProvider;
+
+/**
+ * Karate execution hook which gives FakeDataProvider the identity (feature, line and Examples row) of each scenario
+ * before it runs, so seeded fakeData values do not depend on the order in which parallel scenarios start
+ *
+ * karate-config.js only knows the feature and scenario names, which are the same for every row of an outline. Only
+ * top level scenarios are identified - called features keep using the caller's fakeData.
+ */
+public class FakeDataHook implements ExecutionHook {
+
+    @Override
+    public boolean beforeScenario(final Scenario scenario, final ScenarioContext context) {
+        if (context.callDepth == 0) {
+            FakeDataProvider.forScenarioRow(scenario.getFeature().getRelativePath(), scenario.getLine(), scenario.getExampleIndex());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterScenario(final ScenarioResult result, final ScenarioContext context) {
+        if (context.callDepth == 0) {
+            FakeDataProvider.endScenarioRow();
+        }
+    }
+
+    @Override
+    public boolean beforeFeature(final Feature feature, final ExecutionContext context) {
+        return true;
+    }
+
+    @Override
+    public void afterFeature(final FeatureResult result, final ExecutionContext context) {
+        // Nothing to do
+    }
+
+    @Override
+    public void beforeAll(final Results results) {
+        // Nothing to do
+    }
+
+    @Override
+    public void afterAll(final Results results) {
+        // Nothing to do
+    }
+
+    @Override
+    public boolean beforeStep(final Step step, final ScenarioContext context) {
+        return true;
+    }
+
+    @Override
+    public void afterStep(final StepResult result, final ScenarioContext context) {
+        // Nothing to do
+    }
+
+    @Override
+    public String getPerfEventName(final HttpRequestBuilder req, final ScenarioContext context) {
+        return null;
+    }
+
+    @Override
+    public void reportPerfEvent(final PerfEvent event) {
+        // Nothing to do
+    }
+}
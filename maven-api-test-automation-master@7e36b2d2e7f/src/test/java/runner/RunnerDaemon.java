@@ -0,0 +1,187 @@
+package runner;
+
+import com.intuit.karate.Logger;
+import org.apache.commons.io.output.TeeOutputStream;
+import org.apache.log4j.Appender;
+import org.apache.log4j.Layout;
+import org.apache.log4j.PatternLayout;
+import org.apache.log4j.WriterAppender;
+import utils.testrail.handlers.TestRailIntegrationImp;
+import utils.util.Support;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Long-lived JVM which runs TagBasedApiRunner on request, so repeated local runs skip Maven, JVM, Karate, Nashorn and
+ * Faker startup (see run-tests.sh --daemon)
+ *
+ * Listens on a local (loopback) port, handling one request at a time. Each request is a command line followed by
+ * name=value lines and an empty line:
+ *
+ *      RUN         Run the tests, using the name=value lines as system properties (e.g. karate.env, apitest.tags)
+ *      PING        Check the daemon is running
+ *      STOP        Stop the daemon
+ *
+ * The output of a run (System.out, System.err and log4j logging) is sent back to the client as it is written, followed
+ * by a final "EXIT code" line.
+ *
+ * Usage: RunnerDaemon [port] (default: apitest.daemon.port or 7357)
+ */
+public class RunnerDaemon {
+
+    protected static Logger logger = new Logger();
+
+    public static final int DEFAULT_PORT = 7357;
+
+    // TestRail upload of the previous run, which must read its reports before the next run deletes them
+    private static Future<?> upload;
+
+    private RunnerDaemon() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : Support.getProperty("apitest.daemon.port", DEFAULT_PORT);
+        try (ServerSocket server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress())) {
+            logger.info("Runner daemon listening on {}", server.getLocalSocketAddress());
+            boolean running = true;
+            while (running) {
+                try (Socket socket = server.accept()) {
+                    running = handle(socket);
+                } catch (final IOException e) {
+                    logger.warn("Unable to handle request: {}", e.getMessage());
+                }
+            }
+        }
+        logger.info("Runner daemon stopped");
+    }
+
+    /**
+     * @return Whether to carry on handling requests
+     */
+    private static boolean handle(final Socket socket) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        final PrintStream client = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+
+        final String command = reader.readLine();
+        final Map<String, String> properties = new LinkedHashMap<>();
+        String line;
+        while ((line = reader.readLine()) != null && !line.isEmpty()) {
+            final int equals = line.indexOf('=');
+            if (equals > 0) {
+                properties.put(line.substring(0, equals), line.substring(equals + 1));
+            }
+        }
+
+        if ("PING".equals(command)) {
+            client.println("EXIT 0");
+            return true;
+        }
+        if ("STOP".equals(command)) {
+            client.println("EXIT 0");
+            return false;
+        }
+        if (!"RUN".equals(command)) {
+            client.println("Unknown command: " + command);
+            client.println("EXIT 2");
+            return true;
+        }
+
+        final PrintStream out = System.out;
+        final PrintStream err = System.err;
+        System.setOut(new PrintStream(new TeeOutputStream(out, client), true, "UTF-8"));
+        System.setErr(new PrintStream(new TeeOutputStream(err, client), true, "UTF-8"));
+        // log4j's console appender keeps the stream it was configured with, so it would not reach the client
+        final Appender appender = createClientAppender(client);
+        org.apache.log4j.Logger.getRootLogger().addAppender(appender);
+        int exitCode;
+        try {
+            exitCode = run(properties);
+        } finally {
+            // Not closed, as that would close the client stream
+            org.apache.log4j.Logger.getRootLogger().removeAppender(appender);
+            System.setOut(out);
+            System.setErr(err);
+        }
+        client.println("EXIT " + exitCode);
+        return true;
+    }
+
+    /**
+     * Creates a log4j appender which writes to the client, using the layout of the console appender (if any)
+     */
+    private static Appender createClientAppender(final PrintStream client) {
+        final Appender console = org.apache.log4j.Logger.getRootLogger().getAppender("stdout");
+        final Layout layout = (console != null && console.getLayout() != null)
+                ? console.getLayout() : new PatternLayout("%d{yyyy-MM-dd HH:mm:ss} %-5p %c{1}:%L - %m%n");
+        final WriterAppender appender = new WriterAppender(layout, client);
+        appender.setName("daemon-client");
+        return appender;
+    }
+
+    /**
+     * Runs the tests with the given system properties set, restoring the previous values afterwards
+     * @return 0 if the run passed, otherwise 1
+     */
+    static int run(final Map<String, String> properties) {
+        final Map<String, String> previous = new HashMap<>();
+        properties.forEach((name, value) -> previous.put(name, System.setProperty(name, value)));
+        final String reportDir = Support.getProperty("apitest.json.report.dir", "./target/surefire-reports");
+        try {
+            if (upload != null) {
+                upload.get();
+            }
+            Support.refreshSettings();
+            // Reports of the previous run would be included in the HTML report (Maven would have removed them)
+            deleteReports(reportDir);
+
+            logger.info("Running with {}", properties);
+            new TagBasedApiRunner().runApiTests();
+            return 0;
+        } catch (final Throwable e) {
+            logger.error("Run failed: {}", e.getMessage());
+            return 1;
+        } finally {
+            // Results are uploaded while the client reads the outcome - the JVM waits for the upload on exit. The report
+            // directory is passed explicitly, as the run's properties are restored before the upload starts.
+            if (!Support.getSettings().isSharded()) {
+                upload = TestRailIntegrationImp.updateInBackground(reportDir);
+            }
+            previous.forEach((name, value) -> {
+                if (value == null) {
+                    System.clearProperty(name);
+                } else {
+                    System.setProperty(name, value);
+                }
+            });
+            Support.refreshSettings();
+        }
+    }
+
+    private static void deleteReports(final String reportDir) throws IOException {
+        final Path dir = Paths.get(reportDir);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (final Path file : files.filter(file -> file.toString().endsWith(".json")).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+}
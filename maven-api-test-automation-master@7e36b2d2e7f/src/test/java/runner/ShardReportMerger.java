@@ -0,0 +1,114 @@
+package runner;
+
+import com.intuit.karate.Logger;
+import utils.testrail.handlers.TestRailIntegrationImp;
+import utils.util.Support;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Merges the Karate JSON reports of a sharded run (apitest.shard.index/apitest.shard.count) into one directory, then
+ * generates the HTML report and uploads the results to TestRail (when BUILD_NUMBER is defined) once for the whole run
+ *
+ * Usage: ShardReportMerger [merged report dir] [shard report dir] [shard report dir] ...
+ */
+public class ShardReportMerger {
+
+    protected static Logger logger = new Logger();
+
+    private ShardReportMerger() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("Usage: ShardReportMerger [merged report dir] [shard report dir] ...");
+        }
+        final Path mergedDir = Paths.get(args[0]);
+        final List<Path> shardDirs = new ArrayList<>();
+        for (int shard = 1; shard < args.length; shard++) {
+            shardDirs.add(Paths.get(args[shard]));
+        }
+        final int reports = merge(mergedDir, shardDirs);
+        logger.info("Merged {} reports from {} shards into {}", reports, shardDirs.size(), mergedDir);
+
+        // Everything which reads the reports (HTML report and TestRail) now uses the merged directory
+        System.setProperty("apitest.json.report.dir", mergedDir.toString());
+        Support.refreshSettings();
+
+        if (Support.getProperty("apitest.html.report.generate", true)) {
+            new TagBasedApiRunner().generateHtmlReport(mergedDir.toString());
+        }
+        TestRailIntegrationImp.update();
+    }
+
+    /**
+     * Replaces the JSON reports in the merged directory with those of the shards
+     * @param mergedDir Merged report directory, created if it does not exist
+     * @param shardDirs Report directories of the shards, in shard index order
+     * @return Number of reports copied
+     * @throws IllegalArgumentException if the merged directory is also a shard directory
+     * @throws IOException if the reports cannot be copied
+     */
+    static int merge(final Path mergedDir, final List<Path> shardDirs) throws IOException {
+        final Path merged = realPath(mergedDir);
+        for (final Path shardDir : shardDirs) {
+            if (merged.equals(realPath(shardDir))) {
+                throw new IllegalArgumentException("Merged report directory must not be a shard report directory: "
+                        + shardDir);
+            }
+        }
+
+        Files.createDirectories(mergedDir);
+        // Reports of a previous merge would be uploaded again
+        try (Stream<Path> files = Files.list(mergedDir)) {
+            for (final Path file : files.filter(ShardReportMerger::isReport).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+
+        int reports = 0;
+        for (int shard = 0; shard < shardDirs.size(); shard++) {
+            reports += copyReports(shardDirs.get(shard), mergedDir, "shard-" + shard + "-");
+        }
+        return reports;
+    }
+
+    /**
+     * Copies the JSON reports of a shard, prefixing the name of any report which another shard already has
+     * @return Number of reports copied
+     */
+    private static int copyReports(final Path shardDir, final Path mergedDir, final String prefix) throws IOException {
+        if (!Files.isDirectory(shardDir)) {
+            logger.warn("Shard report directory does not exist: {}", shardDir);
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(shardDir)) {
+            int copied = 0;
+            for (final Path file : files.filter(ShardReportMerger::isReport).sorted().collect(Collectors.toList())) {
+                Path target = mergedDir.resolve(file.getFileName().toString());
+                if (Files.exists(target)) {
+                    target = mergedDir.resolve(prefix + file.getFileName());
+                }
+                Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING);
+                copied++;
+            }
+            return copied;
+        }
+    }
+
+    private static Path realPath(final Path dir) throws IOException {
+        return Files.exists(dir) ? dir.toRealPath() : dir.toAbsolutePath().normalize();
+    }
+
+    private static boolean isReport(final Path file) {
+        return Files.isRegularFile(file) && file.toString().endsWith(".json");
+    }
+}
@@ -0,0 +1,77 @@
+package runner;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ShardReportMergerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void write(final Path file, final String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> names(final Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Verifies the reports of every shard are merged, replacing those of a previous merge, with names which collide
+     * prefixed by the shard index
+     */
+    @Test
+    public void testMerge() throws IOException {
+        final Path shard0 = folder.newFolder("shard-0").toPath();
+        final Path shard1 = folder.newFolder("shard-1").toPath();
+        write(shard0.resolve("posts.json"), "posts-0");
+        write(shard0.resolve("common.json"), "common-0");
+        write(shard0.resolve("karate.log"), "not a report");
+        write(shard1.resolve("users.json"), "users-1");
+        write(shard1.resolve("common.json"), "common-1");
+
+        final Path merged = folder.getRoot().toPath().resolve("merged");
+        Assert.assertEquals(4, ShardReportMerger.merge(merged, Arrays.asList(shard0, shard1)));
+        Assert.assertEquals(Arrays.asList("common.json", "posts.json", "shard-1-common.json", "users.json"),
+                names(merged));
+        Assert.assertEquals("common-1", new String(Files.readAllBytes(merged.resolve("shard-1-common.json")),
+                StandardCharsets.UTF_8));
+
+        // Merging again replaces the reports of the previous merge
+        write(merged.resolve("stale.json"), "stale");
+        Assert.assertEquals(2, ShardReportMerger.merge(merged, Collections.singletonList(shard1)));
+        Assert.assertEquals(Arrays.asList("common.json", "users.json"), names(merged));
+    }
+
+    /**
+     * Verifies a merged directory which is also a shard directory is rejected before its reports are deleted
+     */
+    @Test
+    public void testMergedDirIsShardDir() throws IOException {
+        final Path shard0 = folder.newFolder("shard-0").toPath();
+        final Path shard1 = folder.newFolder("shard-1").toPath();
+        write(shard1.resolve("users.json"), "users-1");
+
+        try {
+            ShardReportMerger.merge(shard1.resolve("../shard-1"), Arrays.asList(shard0, shard1));
+            Assert.fail("Merged into a shard directory");
+        } catch (final IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("shard report directory"));
+        }
+        Assert.assertEquals(Collections.singletonList("users.json"), names(shard1));
+    }
+}
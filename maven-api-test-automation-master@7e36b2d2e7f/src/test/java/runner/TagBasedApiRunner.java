@@ -4,14 +4,15 @@ package runner;
 //import com.intuit.karate.Results;
 //import com.intuit.karate.Runner;
 
-import org.junit.After;
 import org.junit.Assert;
 
 //import net.masterthought.cucumber.Configuration;
 //import net.masterthought.cucumber.ReportBuilder;
-import utils.testrail.exceptions.NoTestRailUrlException;
-import utils.testrail.exceptions.ProjectNotFoundException;
 import utils.testrail.handlers.TestRailIntegrationImp;
+import utils.util.AdaptiveConcurrency;
+import utils.util.ApiTestSettings;
+import utils.util.DurationHistory;
+import utils.util.FeatureSharder;
 import utils.util.Support;
 
 import org.apache.commons.io.FileUtils;
@@ -32,6 +33,9 @@ public class TagBasedApiRunner {
 
     private static String KARATE_ENV = "karate.env";
 
+    // Concurrency chosen by an adaptive run, added to the HTML report
+    private String concurrencySummary;
+
     private void log(final String label, final List<String> list) {
         if (list != null && !list.isEmpty()) {
             logger.info("{}: ({})\n- '{}'", label, list.size(), String.join("'\n- '", list));
@@ -48,18 +52,27 @@ public class TagBasedApiRunner {
         logger.info("{}: {}", label, value);
     }
 
-    @After
-    public void updateTestRail() throws ProjectNotFoundException, NoTestRailUrlException, IOException {
-        TestRailIntegrationImp.update();
+    /**
+     * @return Comma separated feature paths run when apitest.feature.paths is not set
+     */
+    protected String getDefaultFeaturePaths() {
+        return "classpath:features/";
+    }
+
+    /**
+     * @return Number of threads used when apitest.threads is not set
+     */
+    protected int getDefaultThreads() {
+        return 1;
     }
 
     @Test
-    public void runApiTests() {
+    public void runApiTests() throws IOException {
 
         final String jsonReportDir = Support.getProperty("apitest.json.report.dir", "./target/surefire-reports");
-        final List<String> featurePaths = Support.getPropertyList("apitest.feature.paths", "classpath:features/");
+        List<String> featurePaths = Support.getPropertyList("apitest.feature.paths", getDefaultFeaturePaths());
         final List<String> apiTestTags = Support.getPropertyList("apitest.tags", null, "&");
-        final int threads = Support.getProperty("apitest.threads", 1);
+        final int threads = Support.getProperty("apitest.threads", getDefaultThreads());
 
         //
         // NOTE: Karate takes a list of tags to be executed where
@@ -112,6 +125,27 @@ public class TagBasedApiRunner {
             tags.add("~@IGNORE");
         }
 
+        // Only run this JVM's share of the features when the run is spread over several JVMs/agents
+        final List<String> allFeaturePaths = featurePaths;
+        final ApiTestSettings settings = Support.getSettings();
+        if (settings.isSharded()) {
+            log("Shard", (settings.getShardIndex() + 1) + " of " + settings.getShardCount());
+            featurePaths = FeatureSharder.select(featurePaths, tags, settings.getShardIndex(), settings.getShardCount());
+            if (featurePaths.isEmpty()) {
+                logger.info("No features in this shard - nothing to run");
+                return;
+            }
+        }
+
+        // Start the longest features first (by recorded duration), so threads are not left idle at the end of the run
+        final boolean useHistory = Support.getProperty("apitest.duration.history", true);
+        final DurationHistory history = useHistory
+                ? DurationHistory.load(Support.getProperty("apitest.duration.history.file", DurationHistory.DEFAULT_FILE))
+                : null;
+        if (history != null) {
+            featurePaths = history.order(featurePaths);
+        }
+
         log("Features", featurePaths);
         log("Tags", tags);
         log("Report directory", jsonReportDir);
@@ -126,7 +160,40 @@ public class TagBasedApiRunner {
             builder.reportDir(jsonReportDir);
         }
 
-        final Results results = builder.parallel(threads);
+        // Upload results to TestRail as each feature completes, rather than all at once after the run
+        if (!settings.isSharded()) {
+            TestRailIntegrationImp.watch();
+        }
+
+        // Seeded fakeData is reseeded for each scenario (and Examples row), whichever thread runs it
+        if (settings.getFakeDataSeed() != null) {
+            builder.hook(new FakeDataHook());
+        }
+
+        // In adaptive mode Karate is given the maximum number of threads (apitest.threads * 4 by default), and the hook
+        // decides how many run scenarios - the hook, not the pool, limits the number of parallel scenarios
+        int poolSize = threads;
+        AdaptiveConcurrency concurrency = null;
+        if (Support.getProperty("apitest.threads.adaptive", false)) {
+            poolSize = Math.max(Support.getProperty("apitest.threads.max", threads * 4), threads);
+            concurrency = new AdaptiveConcurrency(threads, Support.getProperty("apitest.threads.min", 1), poolSize);
+            builder.hook(new AdaptiveConcurrencyHook(concurrency, history));
+            log("Adaptive thread count", threads + " (maximum " + poolSize + ")");
+        }
+
+        final long started = System.currentTimeMillis();
+        final Results results = builder.parallel(poolSize);
+
+        if (concurrency != null) {
+            concurrencySummary = concurrency.getSummary();
+            log("Concurrency", concurrencySummary);
+        }
+
+        if (history != null && StringUtils.isNotBlank(jsonReportDir)) {
+            log("Durations recorded (features)", history.record(jsonReportDir, started));
+            history.prune(allFeaturePaths);
+            history.save();
+        }
 
         if (Support.getProperty("apitest.html.report.generate", true)) {
             generateHtmlReport(jsonReportDir);
@@ -237,6 +304,10 @@ public class TagBasedApiRunner {
             config.addClassifications(item.caption, displayValue);
             log(item.caption, displayValue);
         }
+
+        if (concurrencySummary != null) {
+            config.addClassifications("Concurrency", concurrencySummary);
+        }
     }
 
     public void generateHtmlReport(String jsonReportDir) {
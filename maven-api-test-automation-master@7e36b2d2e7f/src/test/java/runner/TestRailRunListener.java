@@ -0,0 +1,31 @@
+package runner;
+
+import com.intuit.karate.Logger;
+import org.junit.runner.Result;
+import org.junit.runner.notification.RunListener;
+import utils.testrail.handlers.TestRailIntegrationImp;
+import utils.util.Support;
+
+/**
+ * Uploads results to TestRail once every test class in the JVM has run, rather than after each runner
+ *
+ * Registered with surefire as a JUnit listener (see pom.xml). Only results not already uploaded by the JVM are sent.
+ * The upload completes before the listener returns: surefire halts its forked JVM soon after the tests finish
+ * (forkedProcessExitTimeoutInSeconds), so an upload left running in the background would be cut short.
+ */
+public class TestRailRunListener extends RunListener {
+
+    protected static Logger logger = new Logger();
+
+    @Override
+    public void testRunFinished(final Result result) {
+        // Sharded results are uploaded once, after the shards' reports have been merged (see ShardReportMerger)
+        if (!Support.getSettings().isSharded()) {
+            try {
+                TestRailIntegrationImp.update();
+            } catch (final Exception e) {
+                logger.error("Unable to update TestRail - results not posted are left in the outbox: {}", e.getMessage());
+            }
+        }
+    }
+}
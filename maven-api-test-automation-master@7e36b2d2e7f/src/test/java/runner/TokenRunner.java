@@ -2,6 +2,10 @@ package Runner.student;
 import org.junit.runner.RunWith;
 import com.intuit.karaate.junit4.Karate;
 
+/**
+ * @deprecated Run {@link runner.ApiSuiteRunner} instead
+ */
+@Deprecated
 @RunWith(Karate.class)
 public class TokenRunner {
 }
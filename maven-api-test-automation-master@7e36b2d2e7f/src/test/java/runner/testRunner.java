@@ -2,17 +2,17 @@ package runner;
 
 import com.intuit.karate.Results;
 import com.intuit.karate.Runner;
-import org.junit.After;
 import org.junit.Assert;
-import utils.testrail.exceptions.NoTestRailUrlException;
-import utils.testrail.exceptions.ProjectNotFoundException;
-import utils.testrail.handlers.TestRailIntegrationImp;
 
 import java.io.IOException;
 
 import org.junit.runner.RunWith;
 import com.intuit.karate.junit4.Karate;
 
+/**
+ * @deprecated Run {@link ApiSuiteRunner} instead
+ */
+@Deprecated
 @RunWith(Karate.class)
 public class testRunner {
 
@@ -26,11 +26,6 @@ public class testRunner {
         this.threadCount = threadCount;
     }
 
-    @After
-    public void updateTestRail() throws ProjectNotFoundException, NoTestRailUrlException, IOException {
-        TestRailIntegrationImp.update();
-    }
-
     protected void runTests() {
         Results results = Runner.path(path).tags(tags).parallel(threadCount);
         Assert.assertTrue(results.getErrorMessages(), results.getFailCount() == 0);
@@ -0,0 +1,114 @@
+package utils.config;
+
+import com.microsoft.aad.adal4j.AuthenticationResult;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ClientSecretKeyVaultCredentialTest {
+    private static final String AUTHORITY = "https://login.example.com/tenant";
+    private static final String RESOURCE = "https://vault.example.com";
+
+    /**
+     * Issues tokens "token-1", "token-2" ... each valid for a given number of seconds. Tokens are cached per client id,
+     * so each test uses its own.
+     */
+    private static class StubCredential extends ClientSecretKeyVaultCredential {
+        private final AtomicInteger requests = new AtomicInteger();
+        private final long[] expiresInSeconds;
+        private final CountDownLatch release;
+
+        StubCredential(String clientId, CountDownLatch release, long... expiresInSeconds) {
+            super(clientId, "key");
+            this.release = release;
+            this.expiresInSeconds = expiresInSeconds;
+        }
+
+        @Override
+        AuthenticationResult requestToken(String authorization, String resource) {
+            int request = requests.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long expiresIn = expiresInSeconds[Math.min(request, expiresInSeconds.length) - 1];
+            return new AuthenticationResult("Bearer", "token-" + request, null, expiresIn, null, null, false);
+        }
+    }
+
+    private static StubCredential credential(String clientId, long... expiresInSeconds) {
+        return new StubCredential(clientId, new CountDownLatch(0), expiresInSeconds);
+    }
+
+    /**
+     * Verifies a token is reused while it is not near expiry, by other credentials of the same client too
+     */
+    @Test
+    public void testCachedToken() {
+        StubCredential credential = credential("cached", 3600);
+        Assert.assertEquals("token-1", credential.doAuthenticate(AUTHORITY, RESOURCE, null));
+        Assert.assertEquals("token-1", credential.doAuthenticate(AUTHORITY, RESOURCE, null));
+
+        StubCredential other = credential("cached", 3600);
+        Assert.assertEquals("token-1", other.doAuthenticate(AUTHORITY, RESOURCE, null));
+        Assert.assertEquals(1, credential.requests.get());
+        Assert.assertEquals(0, other.requests.get());
+    }
+
+    /**
+     * Verifies a token within 5 minutes of expiry is still returned, while a new one is requested in the background
+     */
+    @Test
+    public void testRefreshAhead() throws Exception {
+        StubCredential credential = credential("refresh-ahead", 120, 3600);
+        Assert.assertEquals("token-1", credential.doAuthenticate(AUTHORITY, RESOURCE, null));
+        Assert.assertEquals("token-1", credential.doAuthenticate(AUTHORITY, RESOURCE, null));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        String token = null;
+        while (System.currentTimeMillis() < deadline && !"token-2".equals(token)) {
+            Thread.sleep(10);
+            token = credential.doAuthenticate(AUTHORITY, RESOURCE, null);
+        }
+        Assert.assertEquals("token-2", token);
+        Assert.assertEquals(2, credential.requests.get());
+    }
+
+    /**
+     * Verifies a token within 30 seconds of expiry is not used, but waits for a new one
+     */
+    @Test
+    public void testExpiryMargin() {
+        StubCredential credential = credential("expiry-margin", 20, 3600);
+        Assert.assertEquals("token-1", credential.doAuthenticate(AUTHORITY, RESOURCE, null));
+        Assert.assertEquals("token-2", credential.doAuthenticate(AUTHORITY, RESOURCE, null));
+        Assert.assertEquals(2, credential.requests.get());
+    }
+
+    /**
+     * Verifies concurrent callers without a token share a single token request
+     */
+    @Test
+    public void testSingleRequest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        StubCredential credential = new StubCredential("single-request", release, 3600);
+        List<CompletableFuture<String>> tokens = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tokens.add(CompletableFuture.supplyAsync(() -> credential.doAuthenticate(AUTHORITY, RESOURCE, null)));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (CompletableFuture<String> token : tokens) {
+            Assert.assertEquals("token-1", token.get(5, TimeUnit.SECONDS));
+        }
+        Assert.assertEquals(1, credential.requests.get());
+    }
+}
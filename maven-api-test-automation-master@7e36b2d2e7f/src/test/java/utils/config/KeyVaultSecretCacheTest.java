@@ -0,0 +1,51 @@
+package utils.config;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class KeyVaultSecretCacheTest {
+    private static final String VAULT = "https://vault.example.com/";
+
+    private final AtomicLong now = new AtomicLong(1000000);
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    @After
+    public void invalidate() {
+        new KeyVaultSecretCache(0).invalidate();
+    }
+
+    private String fetch() {
+        return "secret-" + fetches.incrementAndGet();
+    }
+
+    /**
+     * Verifies a secret is fetched once per time to live, by every cache of the JVM
+     */
+    @Test
+    public void testTtl() {
+        KeyVaultSecretCache cache = new KeyVaultSecretCache(60, now::get);
+        Assert.assertEquals("secret-1", cache.get(VAULT, "name", this::fetch));
+        Assert.assertEquals("secret-1", new KeyVaultSecretCache(60, now::get).get(VAULT, "name", this::fetch));
+
+        now.addAndGet(59999);
+        Assert.assertEquals("secret-1", cache.get(VAULT, "name", this::fetch));
+        now.addAndGet(1);
+        Assert.assertEquals("secret-2", cache.get(VAULT, "name", this::fetch));
+        Assert.assertEquals("secret-3", cache.get(VAULT, "other", this::fetch));
+        Assert.assertEquals(3, fetches.get());
+    }
+
+    /**
+     * Verifies nothing is cached when the time to live is 0
+     */
+    @Test
+    public void testNoCache() {
+        KeyVaultSecretCache cache = new KeyVaultSecretCache(0, now::get);
+        Assert.assertEquals("secret-1", cache.get(VAULT, "name", this::fetch));
+        Assert.assertEquals("secret-2", cache.get(VAULT, "name", this::fetch));
+    }
+}
@@ -0,0 +1,58 @@
+package utils.config;
+
+import org.jasypt.encryption.pbe.StandardPBEStringEncryptor;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class LazyDecryptingPropertiesTest {
+    private static final String PASSWORD = "password";
+
+    private final AtomicInteger passwordRequests = new AtomicInteger();
+
+    private LazyDecryptingProperties properties() {
+        StandardPBEStringEncryptor encryptor = new StandardPBEStringEncryptor();
+        encryptor.setPassword(PASSWORD);
+        LazyDecryptingProperties properties = new LazyDecryptingProperties(() -> {
+            passwordRequests.incrementAndGet();
+            return PASSWORD;
+        });
+        properties.setProperty("testrail.user", "ENC(" + encryptor.encrypt("user") + ")");
+        properties.setProperty("testrail.url", "https://example.testrail.io/");
+        return properties;
+    }
+
+    /**
+     * Verifies the password is not requested until an encrypted value is read
+     */
+    @Test
+    public void testPlainValue() {
+        LazyDecryptingProperties properties = properties();
+        Assert.assertEquals("https://example.testrail.io/", properties.getProperty("testrail.url"));
+        Assert.assertNull(properties.getProperty("testrail.missing"));
+        Assert.assertEquals(0, passwordRequests.get());
+    }
+
+    /**
+     * Verifies an encrypted value is decrypted once, until it is discarded or replaced
+     */
+    @Test
+    public void testDecryptOnce() {
+        LazyDecryptingProperties properties = properties();
+        String user = properties.getProperty("testrail.user");
+        Assert.assertEquals("user", user);
+        Assert.assertSame(user, properties.getProperty("testrail.user"));
+        Assert.assertEquals(1, passwordRequests.get());
+
+        properties.clearDecrypted();
+        String decryptedAgain = properties.getProperty("testrail.user");
+        Assert.assertEquals("user", decryptedAgain);
+        Assert.assertNotSame(user, decryptedAgain);
+
+        properties.setProperty("testrail.user", "other");
+        Assert.assertEquals("other", properties.getProperty("testrail.user"));
+        // The password is only requested once
+        Assert.assertEquals(1, passwordRequests.get());
+    }
+}
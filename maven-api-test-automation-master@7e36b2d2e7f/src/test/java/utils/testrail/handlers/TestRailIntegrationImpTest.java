@@ -0,0 +1,156 @@
+package utils.testrail.handlers;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import utils.testrail.report.ScenarioResults;
+import utils.testrail.report.ScenarioStatus;
+import utils.testrail.standin.TestRailStandIn;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static utils.testrail.Constants.*;
+
+/**
+ * Uploads results to a local TestRail stand-in
+ */
+public class TestRailIntegrationImpTest {
+    private static final String PROJECT = "Stand-in";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestRailStandIn standIn;
+
+    @Before
+    public void startStandIn() throws IOException {
+        standIn = new TestRailStandIn(PROJECT).start();
+    }
+
+    @After
+    public void stopStandIn() {
+        standIn.stop();
+    }
+
+    private Properties getProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(TESTRAIL_URL, standIn.getUrl());
+        properties.setProperty(TESTRAIL_USER, "user");
+        properties.setProperty(TESTRAIL_PASS, "key");
+        properties.setProperty(PROJECT_NAME, PROJECT);
+        properties.setProperty(DEFAULT_PREFIX, "Test");
+        properties.setProperty(DATETIME_FORMAT, "dd-MM-yyyy HH:mm:ss");
+        properties.setProperty(BATCH_SIZE, "250");
+        properties.setProperty(RATE_LIMIT, "0");
+        properties.setProperty(CACHE_FILE, "");
+        properties.setProperty(OUTBOX_DIR, getOutboxDir());
+        return properties;
+    }
+
+    private String getOutboxDir() {
+        return new File(folder.getRoot(), "outbox").getPath();
+    }
+
+    private List<TestRailOutbox.Record> getPending() throws IOException {
+        try (TestRailOutbox outbox = new TestRailOutbox(getOutboxDir())) {
+            return outbox.getPending();
+        }
+    }
+
+    private static ScenarioResults results(int firstCaseId, int count) {
+        ScenarioResults results = new ScenarioResults(count);
+        for (int caseId = firstCaseId; caseId < firstCaseId + count; caseId++) {
+            results.put(caseId, caseId % 10 == 0 ? ScenarioStatus.FAILED : ScenarioStatus.PASSED, caseId % 10 == 0 ? "failed" : "");
+        }
+        return results;
+    }
+
+    private int calls(String method) {
+        Integer count = standIn.getCalls().get(method);
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Verifies results are posted in batches of testrail.batch.size, into a run created with every case, and that
+     * cases of a later upload are added to the run with a single update
+     */
+    @Test
+    public void testBatching() throws Exception {
+        TestRailIntegrationImp imp = new TestRailIntegrationImp(getProperties());
+        imp.upload(results(1, 600));
+        imp.awaitUploads();
+
+        Assert.assertEquals(600, standIn.getResultCount());
+        Assert.assertEquals(3, calls("add_results_for_cases"));
+        Assert.assertEquals(1, calls("add_run"));
+        Assert.assertEquals(0, calls("update_run"));
+        Assert.assertEquals(0, calls("add_result_for_case"));
+
+        imp.upload(results(601, 10));
+        imp.awaitUploads();
+
+        Assert.assertEquals(610, standIn.getResultCount());
+        Assert.assertEquals(4, calls("add_results_for_cases"));
+        Assert.assertEquals(1, calls("add_run"));
+        Assert.assertEquals(1, calls("update_run"));
+        Map<Integer, List<Integer>> runCaseIds = standIn.getRunCaseIds();
+        Assert.assertEquals(1, runCaseIds.size());
+        Assert.assertEquals(610, runCaseIds.values().iterator().next().size());
+        Assert.assertFalse(new File(getOutboxDir(), "results.jsonl").exists());
+    }
+
+    /**
+     * Verifies throttled requests (429) are retried after the time TestRail asks for, and failed reads are retried
+     */
+    @Test
+    public void testRetries() throws Exception {
+        standIn.failNext("add_results_for_cases", 429, 2).failNext("get_runs", 500, 1);
+        TestRailIntegrationImp imp = new TestRailIntegrationImp(getProperties());
+        long start = System.currentTimeMillis();
+        imp.upload(results(1, 100));
+        imp.awaitUploads();
+
+        Assert.assertEquals(100, standIn.getResultCount());
+        Assert.assertEquals(3, calls("add_results_for_cases"));
+        Assert.assertEquals(2, calls("get_runs"));
+        // Retry after 1 second, twice
+        Assert.assertTrue(System.currentTimeMillis() - start >= 2000);
+    }
+
+    /**
+     * Verifies results which failed to post are not retried (TestRail may have added them), but are left in the
+     * outbox, and posted once by the next upload
+     */
+    @Test
+    public void testResumeFromOutbox() throws Exception {
+        standIn.failNext("add_results_for_cases", 500, 1);
+        TestRailIntegrationImp imp = new TestRailIntegrationImp(getProperties());
+        imp.upload(results(1, 10));
+        try {
+            imp.awaitUploads();
+            Assert.fail("Expected the upload to fail");
+        } catch (IOException e) {
+            // Expected
+        }
+        Assert.assertEquals(0, standIn.getResultCount());
+        Assert.assertEquals(1, calls("add_results_for_cases"));
+        Assert.assertEquals(10, getPending().size());
+
+        // A later JVM (or TestRailOutboxReplay) posts the pending results, along with its own
+        TestRailIntegrationImp later = new TestRailIntegrationImp(getProperties());
+        later.upload(results(11, 5));
+        later.awaitUploads();
+
+        // Each result once
+        Assert.assertEquals(15, standIn.getResultCount());
+        Assert.assertTrue(getPending().isEmpty());
+        Assert.assertFalse(new File(getOutboxDir(), "results.jsonl").exists());
+    }
+}
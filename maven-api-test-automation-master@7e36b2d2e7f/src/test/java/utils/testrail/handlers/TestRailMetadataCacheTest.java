@@ -0,0 +1,59 @@
+package utils.testrail.handlers;
+
+import com.codepine.api.testrail.model.CaseField;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Collections;
+import java.util.List;
+
+public class TestRailMetadataCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies ids kept in the snapshot are used by a later cache of the same TestRail instance only
+     */
+    @Test
+    public void testSnapshotUrl() throws Exception {
+        final String snapshot = folder.getRoot().toPath().resolve("metadata.properties").toString();
+        final TestRailMetadataCache cache = new TestRailMetadataCache("https://a.testrail.io/", 60, snapshot);
+        cache.putProjectId("Project", 1);
+        cache.putRunId(1, "Run", 2);
+
+        final TestRailMetadataCache same = new TestRailMetadataCache("https://a.testrail.io", 60, snapshot);
+        Assert.assertEquals(Integer.valueOf(1), same.getProjectId("project"));
+        Assert.assertEquals(Integer.valueOf(2), same.getRunId(1, "Run"));
+
+        final TestRailMetadataCache other = new TestRailMetadataCache("http://localhost:8080/", 60, snapshot);
+        Assert.assertNull(other.getProjectId("Project"));
+        Assert.assertNull(other.getRunId(1, "Run"));
+        other.putProjectId("Project", 3);
+
+        // The snapshot now belongs to the other instance
+        Assert.assertNull(new TestRailMetadataCache("https://a.testrail.io", 60, snapshot).getProjectId("Project"));
+        Assert.assertEquals(Integer.valueOf(3), new TestRailMetadataCache("http://localhost:8080", 60, snapshot).getProjectId("Project"));
+    }
+
+    /**
+     * Verifies fields cached in memory are kept per TestRail instance
+     */
+    @Test
+    public void testFieldsUrl() {
+        final List<CaseField> a = Collections.singletonList(new CaseField());
+        final List<CaseField> b = Collections.singletonList(new CaseField());
+        final TestRailMetadataCache cacheA = new TestRailMetadataCache("https://fields-a.testrail.io", 60, null);
+        final TestRailMetadataCache cacheB = new TestRailMetadataCache("https://fields-b.testrail.io", 60, null);
+
+        Assert.assertSame(a, cacheA.getCaseFields(() -> a));
+        Assert.assertSame(b, cacheB.getCaseFields(() -> b));
+        Assert.assertSame(a, new TestRailMetadataCache("https://fields-a.testrail.io", 60, null).getCaseFields(() -> b));
+
+        cacheA.invalidate();
+        Assert.assertSame(b, cacheA.getCaseFields(() -> b));
+        Assert.assertSame(b, cacheB.getCaseFields(() -> a));
+    }
+}
@@ -0,0 +1,146 @@
+package utils.testrail.handlers;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+public class TestRailOutboxTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Long> seqs(final List<TestRailOutbox.Record> records) {
+        return records.stream().map(TestRailOutbox.Record::getSeq).collect(Collectors.toList());
+    }
+
+    private static List<TestRailOutbox.Record> pending(final String dir) throws IOException {
+        try (TestRailOutbox outbox = new TestRailOutbox(dir)) {
+            return outbox.getPending();
+        }
+    }
+
+    private static void appendBytes(final Path file, final String text) throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Verifies records which are not acknowledged are pending when the outbox is reopened
+     */
+    @Test
+    public void testResume() throws IOException {
+        final String dir = folder.getRoot().toString();
+        try (TestRailOutbox outbox = new TestRailOutbox(dir)) {
+            outbox.append("Project", "Run", Arrays.asList(
+                    new TestRailOutbox.Record(1, "passed", "a"),
+                    new TestRailOutbox.Record(2, "failed", "b"),
+                    new TestRailOutbox.Record(3, "passed", "c")));
+            outbox.ack(outbox.getPending().subList(0, 2));
+        }
+
+        try (TestRailOutbox reopened = new TestRailOutbox(dir)) {
+            final List<TestRailOutbox.Record> pending = reopened.getPending();
+            Assert.assertEquals(Arrays.asList(3L), seqs(pending));
+            Assert.assertEquals(3, pending.get(0).getCaseId());
+            Assert.assertEquals("Project", pending.get(0).getProject());
+            Assert.assertEquals("Run", pending.get(0).getRun());
+
+            reopened.ack(pending);
+            Assert.assertTrue(reopened.compact());
+        }
+        Assert.assertFalse(new File(dir, "results.jsonl").exists());
+    }
+
+    /**
+     * Verifies a record torn part way through appending is dropped, and the next record is appended on its own line
+     */
+    @Test
+    public void testTornResultsLine() throws IOException {
+        final String dir = folder.getRoot().toString();
+        final Path results = folder.getRoot().toPath().resolve("results.jsonl");
+        try (TestRailOutbox outbox = new TestRailOutbox(dir)) {
+            outbox.append("Project", "Run", Arrays.asList(new TestRailOutbox.Record(1, "passed", "a")));
+        }
+        appendBytes(results, "{\"seq\":2,\"project\":\"Pro");
+
+        try (TestRailOutbox outbox = new TestRailOutbox(dir)) {
+            Assert.assertEquals(Arrays.asList(1L), seqs(outbox.getPending()));
+            outbox.append("Project", "Run", Arrays.asList(new TestRailOutbox.Record(2, "passed", "b")));
+        }
+
+        Assert.assertEquals(2, Files.readAllLines(results, StandardCharsets.UTF_8).size());
+        final List<TestRailOutbox.Record> pending = pending(dir);
+        Assert.assertEquals(Arrays.asList(1L, 2L), seqs(pending));
+        Assert.assertEquals(2, pending.get(1).getCaseId());
+    }
+
+    /**
+     * Verifies an acknowledgement torn part way through appending is dropped, rather than fusing with the next one
+     * (e.g. "1" followed by "4 5" acknowledging 14)
+     */
+    @Test
+    public void testTornAckedLine() throws IOException {
+        final String dir = folder.getRoot().toString();
+        final Path acked = folder.getRoot().toPath().resolve("acked.log");
+        try (TestRailOutbox outbox = new TestRailOutbox(dir)) {
+            final List<TestRailOutbox.Record> records = Arrays.asList(
+                    new TestRailOutbox.Record(1, "passed", "a"),
+                    new TestRailOutbox.Record(2, "passed", "b"));
+            outbox.append("Project", "Run", records);
+            outbox.ack(records.subList(0, 1));
+        }
+        appendBytes(acked, "2 ");
+
+        try (TestRailOutbox reopened = new TestRailOutbox(dir)) {
+            Assert.assertEquals(Arrays.asList(2L), seqs(reopened.getPending()));
+            Assert.assertEquals(Arrays.asList("1"), Files.readAllLines(acked, StandardCharsets.UTF_8));
+
+            reopened.append("Project", "Run", Arrays.asList(new TestRailOutbox.Record(4, "passed", "d")));
+            reopened.ack(reopened.getPending().subList(1, 2));
+        }
+        Assert.assertEquals(Arrays.asList("1", "3"), Files.readAllLines(acked, StandardCharsets.UTF_8));
+        Assert.assertEquals(Arrays.asList(2L), seqs(pending(dir)));
+    }
+
+    /**
+     * Verifies an outbox which is open cannot be opened again until it is closed, and cannot be written once closed
+     */
+    @Test
+    public void testLock() throws Exception {
+        final String dir = folder.getRoot().toString();
+        final TestRailOutbox outbox = new TestRailOutbox(dir);
+        outbox.append("Project", "Run", Arrays.asList(new TestRailOutbox.Record(1, "passed", "a")));
+
+        final CompletableFuture<List<TestRailOutbox.Record>> reopened = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pending(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Thread.sleep(200);
+        Assert.assertFalse(reopened.isDone());
+
+        outbox.close();
+        Assert.assertEquals(Arrays.asList(1L), seqs(reopened.get(5, TimeUnit.SECONDS)));
+        try {
+            outbox.append("Project", "Run", Arrays.asList(new TestRailOutbox.Record(2, "passed", "b")));
+            Assert.fail("Expected a closed outbox not to be appended to");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+}
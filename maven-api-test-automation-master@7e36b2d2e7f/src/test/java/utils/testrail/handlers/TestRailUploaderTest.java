@@ -0,0 +1,60 @@
+package utils.testrail.handlers;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+public class TestRailUploaderTest {
+    private final TestRailUploader uploader = new TestRailUploader(2, 0, 0);
+
+    @After
+    public void shutdown() {
+        uploader.shutdown();
+    }
+
+    /**
+     * Verifies a task which failed before awaitCompletion() was called is still reported, once
+     */
+    @Test
+    public void testFailureReported() throws Exception {
+        CompletableFuture<Void> failed = uploader.submit("fail", () -> {
+            throw new IllegalStateException("Failed");
+        });
+        uploader.submit("succeed", () -> { });
+        try {
+            failed.join();
+        } catch (RuntimeException e) {
+            // Expected
+        }
+
+        try {
+            uploader.awaitCompletion();
+            Assert.fail("Expected the failed task to be reported");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        uploader.awaitCompletion();
+    }
+
+    /**
+     * Verifies work chained onto a submitted task is waited for when it is tracked, and its failure reported
+     */
+    @Test
+    public void testTrackedFuture() throws Exception {
+        CompletableFuture<Void> chained = uploader.track("acknowledge", uploader.submit("post", () -> { })
+                .thenRun(() -> {
+                    throw new IllegalStateException("Not acknowledged");
+                }));
+
+        try {
+            uploader.awaitCompletion();
+            Assert.fail("Expected the tracked future to be reported");
+        } catch (IOException e) {
+            Assert.assertTrue(chained.isCompletedExceptionally());
+            Assert.assertEquals("Not acknowledged", e.getCause().getMessage());
+        }
+    }
+}
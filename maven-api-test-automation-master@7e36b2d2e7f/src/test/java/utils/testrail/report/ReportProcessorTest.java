@@ -0,0 +1,106 @@
+package utils.testrail.report;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class ReportProcessorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void clearProperties() {
+        System.clearProperty(ReportProcessor.STREAMING_PROPERTY);
+        System.clearProperty(ReportProcessor.THREADS_PROPERTY);
+    }
+
+    private static String step(final String status, final String errorMessage) {
+        return "{\"keyword\":\"* \",\"name\":\"step\",\"line\":3,\"match\":{\"location\":\"karate\",\"arguments\":[]},"
+                + "\"doc_string\":{\"content_type\":\"\",\"value\":\"{ \\\"a\\\": [1, 2] }\",\"line\":4},"
+                + "\"result\":{\"status\":\"" + status + "\",\"duration\":1000"
+                + (errorMessage == null ? "" : ",\"error_message\":\"" + errorMessage + "\"") + "},"
+                + "\"embeddings\":[{\"mime_type\":\"text/plain\",\"data\":\"ZGF0YQ==\"}]}";
+    }
+
+    private static String scenario(final String name, final String... steps) {
+        return "{\"line\":2,\"name\":\"" + name + "\",\"description\":\"\",\"id\":\"id\",\"type\":\"scenario\","
+                + "\"keyword\":\"Scenario\",\"tags\":[{\"name\":\"@smoke\",\"line\":1}],\"steps\":[" + String.join(",", steps) + "]}";
+    }
+
+    private static String feature(final String uri, final String... scenarios) {
+        return "{\"line\":1,\"uri\":\"" + uri + "\",\"name\":\"" + uri + "\",\"description\":\"\",\"id\":\"f\","
+                + "\"keyword\":\"Feature\",\"elements\":[" + String.join(",", scenarios) + "]}";
+    }
+
+    private void write(final Path dir, final String name, final String... features) throws IOException {
+        Files.write(dir.resolve(name), ("[" + String.join(",", features) + "]").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ScenarioResults analyse(final Path dir, final boolean streaming, final int threads) {
+        System.setProperty(ReportProcessor.STREAMING_PROPERTY, Boolean.toString(streaming));
+        System.setProperty(ReportProcessor.THREADS_PROPERTY, Integer.toString(threads));
+        return new ReportProcessor(dir.toString()).analyseReports();
+    }
+
+    private static void assertSameResults(final ScenarioResults expected, final ScenarioResults actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int index = 0; index < expected.size(); index++) {
+            final int caseId = expected.getCaseId(index);
+            final int actualIndex = actual.indexOf(caseId);
+            Assert.assertTrue("Case " + caseId, actualIndex >= 0);
+            Assert.assertEquals("Case " + caseId, expected.getStatus(index), actual.getStatus(actualIndex));
+            Assert.assertEquals("Case " + caseId, expected.getMessage(index), actual.getMessage(actualIndex));
+        }
+    }
+
+    /**
+     * Verifies the streaming parser gives the same results as the Gson object model, including error messages
+     */
+    @Test
+    public void testStreamingMatchesModel() throws IOException {
+        final Path dir = folder.getRoot().toPath();
+        write(dir, "users.json",
+                feature("features/users.feature",
+                        scenario("[C1] - Passed", step("passed", null), step("passed", null)),
+                        scenario("[C2] - Failed", step("passed", null), step("failed", "expected: 200\\nactual: 500"), step("skipped", null)),
+                        scenario("No case id", step("failed", "ignored"))),
+                feature("features/users2.feature",
+                        scenario("[c3] - Lower case", step("passed", null)),
+                        scenario("[C4] - Two errors", step("failed", "first"), step("failed", "second \\\"quoted\\\""))));
+        write(dir, "posts.json",
+                feature("features/posts.feature",
+                        scenario("[C5] - Unicode \\u00e9", step("passed", null)),
+                        scenario("[C6]-No spaces", step("failed", "same message")),
+                        scenario("[C7] - Same message", step("failed", "same message"))));
+
+        final ScenarioResults model = analyse(dir, false, 1);
+        Assert.assertEquals(7, model.size());
+        Assert.assertEquals(ScenarioStatus.FAILED, model.getStatus(model.indexOf(2)));
+        Assert.assertEquals("\nexpected: 200\nactual: 500", model.getMessage(model.indexOf(2)));
+
+        assertSameResults(model, analyse(dir, true, 1));
+        assertSameResults(model, analyse(dir, true, 4));
+    }
+
+    /**
+     * Verifies a malformed report is skipped without losing the results of the other reports
+     */
+    @Test
+    public void testMalformedReport() throws IOException {
+        final Path dir = folder.getRoot().toPath();
+        write(dir, "good.json", feature("features/good.feature", scenario("[C1] - Passed", step("passed", null))));
+        Files.write(dir.resolve("bad.json"), "[{\"elements\":[{\"name\":\"[C2] - Truncated\",\"steps\":[".getBytes(StandardCharsets.UTF_8));
+
+        final ScenarioResults results = analyse(dir, true, 1);
+        Assert.assertEquals(1, results.size());
+        Assert.assertEquals(1, results.getCaseId(0));
+    }
+}
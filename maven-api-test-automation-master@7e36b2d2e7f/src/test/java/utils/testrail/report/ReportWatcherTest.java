@@ -0,0 +1,55 @@
+package utils.testrail.report;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReportWatcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void write(final Path file, final String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Verifies flush() processes every report before reporting those it could not read, and retries only those
+     */
+    @Test
+    public void testFlushProcessesEveryReport() throws IOException {
+        final Path dir = folder.getRoot().toPath();
+        write(dir.resolve("a.json"), "[{\"elements\":[");
+        write(dir.resolve("b.json"), "[{\"elements\":[{\"name\":\"[C1] - Passed\",\"type\":\"scenario\",\"steps\":"
+                + "[{\"result\":{\"status\":\"passed\"}}]}]}]");
+        write(dir.resolve("c.json"), "[{\"elements\":[{\"name\":");
+
+        final List<String> reported = new ArrayList<>();
+        final ReportWatcher watcher = new ReportWatcher(new ReportProcessor(dir.toString()),
+                (file, results) -> reported.add(Paths.get(file).getFileName() + ":" + results.size()));
+        try {
+            watcher.flush();
+            Assert.fail("Expected the malformed reports to be reported");
+        } catch (IOException e) {
+            Assert.assertEquals("Unable to process 2 report(s)", e.getMessage());
+            Assert.assertEquals(1, e.getSuppressed().length);
+        }
+        Assert.assertEquals(1, reported.size());
+        Assert.assertEquals("b.json:1", reported.get(0));
+
+        write(dir.resolve("a.json"), "[]");
+        Files.delete(dir.resolve("c.json"));
+        watcher.flush();
+        Assert.assertEquals(2, reported.size());
+        Assert.assertEquals("a.json:0", reported.get(1));
+    }
+}
@@ -0,0 +1,114 @@
+package utils.testrail.report;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ScenarioResultsTest {
+
+    /**
+     * Same hash as ScenarioResults, to find case ids which share a slot of its table
+     */
+    private static int slot(final int caseId, final int tableSize) {
+        final int hash = caseId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (tableSize - 1);
+    }
+
+    /**
+     * Verifies case ids which hash to the same slot are all found, probing past each other
+     */
+    @Test
+    public void testCollisions() {
+        // Capacity 4 gives a table of 8 slots, holding up to 6 results before it grows
+        final ScenarioResults results = new ScenarioResults(4);
+        final int[] caseIds = new int[5];
+        int found = 0;
+        for (int caseId = 1; found < caseIds.length; caseId++) {
+            if (slot(caseId, 8) == slot(1, 8)) {
+                caseIds[found++] = caseId;
+            }
+        }
+        for (final int caseId : caseIds) {
+            results.put(caseId, ScenarioStatus.PASSED, "case " + caseId);
+        }
+        Assert.assertEquals(caseIds.length, results.size());
+        for (int i = 0; i < caseIds.length; i++) {
+            Assert.assertEquals(i, results.indexOf(caseIds[i]));
+            Assert.assertEquals("case " + caseIds[i], results.getMessage(i));
+        }
+        // Absent case ids, one probing the same slots and one a different slot
+        int absent = caseIds[caseIds.length - 1] + 1;
+        while (slot(absent, 8) != slot(1, 8)) {
+            absent++;
+        }
+        Assert.assertEquals(-1, results.indexOf(absent));
+        Assert.assertEquals(-1, results.indexOf(0));
+    }
+
+    /**
+     * Verifies every result is kept, in insertion order, as the arrays and table grow well beyond the expected size
+     */
+    @Test
+    public void testResize() {
+        final ScenarioResults results = new ScenarioResults(1);
+        final int count = 10_000;
+        for (int i = 0; i < count; i++) {
+            results.put(i * 31, i % 3 == 0 ? ScenarioStatus.FAILED : ScenarioStatus.PASSED, i % 3 == 0 ? "error" : "");
+        }
+        Assert.assertEquals(count, results.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(i, results.indexOf(i * 31));
+            Assert.assertEquals(i * 31, results.getCaseId(i));
+            Assert.assertEquals(i % 3 == 0 ? ScenarioStatus.FAILED : ScenarioStatus.PASSED, results.getStatus(i));
+        }
+        Assert.assertEquals(-1, results.indexOf(1));
+    }
+
+    /**
+     * Verifies a later result for a case id replaces the earlier one, keeping its position
+     */
+    @Test
+    public void testOverwrite() {
+        final ScenarioResults results = new ScenarioResults();
+        results.put(1, ScenarioStatus.FAILED, "first");
+        results.put(2, ScenarioStatus.PASSED, null);
+        results.put(1, ScenarioStatus.PASSED, new StringBuilder());
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(0, results.indexOf(1));
+        Assert.assertEquals(ScenarioStatus.PASSED, results.getStatus(0));
+        Assert.assertEquals("", results.getMessage(0));
+        Assert.assertEquals("", results.getMessage(1));
+    }
+
+    /**
+     * Verifies putAll() adds new case ids and replaces existing ones, with messages copied from the other map
+     */
+    @Test
+    public void testPutAll() {
+        final ScenarioResults first = new ScenarioResults();
+        first.put(1, ScenarioStatus.PASSED, "");
+        first.put(2, ScenarioStatus.FAILED, "old");
+
+        final ScenarioResults second = new ScenarioResults(2);
+        final StringBuilder message = new StringBuilder("new");
+        second.put(2, ScenarioStatus.PASSED, message);
+        second.put(3, ScenarioStatus.FAILED, message);
+        // Messages are copied, so the (reused) buffer can change afterwards
+        message.setLength(0);
+
+        first.putAll(second);
+        Assert.assertEquals(3, first.size());
+        Assert.assertEquals(ScenarioStatus.PASSED, first.getStatus(first.indexOf(2)));
+        Assert.assertEquals("new", first.getMessage(first.indexOf(2)));
+        Assert.assertEquals(2, first.indexOf(3));
+        Assert.assertEquals("new", first.getMessage(2));
+        // Identical messages are stored once
+        Assert.assertSame(first.getMessage(first.indexOf(2)), first.getMessage(first.indexOf(3)));
+        Assert.assertEquals(2, second.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testIndexOutOfBounds() {
+        new ScenarioResults().getCaseId(0);
+    }
+}
@@ -0,0 +1,82 @@
+package utils.testrail.standin;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes Cucumber JSON reports shaped like those written by Karate, for benchmarking report processing and uploads
+ */
+public class SyntheticReports {
+
+    private SyntheticReports() {
+    }
+
+    /**
+     * Writes one report file per feature, with scenarios named "[C<case id>] - ..." using consecutive case ids
+     * @param dir Directory to write to (created if it does not exist)
+     * @param features Number of feature (report) files
+     * @param scenariosPerFeature Number of scenarios per feature
+     * @param stepsPerScenario Number of steps per scenario
+     * @param failureRate Proportion of scenarios (0 to 1) which fail
+     * @param firstCaseId Case id of the first scenario
+     * @param seed Random seed, so the same reports are written each time
+     */
+    public static void write(Path dir, int features, int scenariosPerFeature, int stepsPerScenario, double failureRate,
+                             int firstCaseId, long seed) throws IOException {
+        Files.createDirectories(dir);
+        Random random = new Random(seed);
+        int caseId = firstCaseId;
+        for (int feature = 1; feature <= features; feature++) {
+            try (Writer writer = Files.newBufferedWriter(dir.resolve("feature-" + feature + ".json"), StandardCharsets.UTF_8);
+                 JsonWriter json = new JsonWriter(writer)) {
+                json.beginArray().beginObject();
+                json.name("uri").value("synthetic/feature-" + feature + ".feature");
+                json.name("id").value("feature-" + feature);
+                json.name("keyword").value("Feature");
+                json.name("name").value("Synthetic feature " + feature);
+                json.name("elements").beginArray();
+                for (int scenario = 1; scenario <= scenariosPerFeature; scenario++) {
+                    boolean failed = random.nextDouble() < failureRate;
+                    int failedStep = failed ? random.nextInt(stepsPerScenario) : -1;
+                    json.beginObject();
+                    json.name("keyword").value("Scenario");
+                    json.name("type").value("scenario");
+                    json.name("line").value(scenario * 10);
+                    json.name("name").value("[C" + caseId++ + "] - Synthetic scenario " + scenario);
+                    json.name("steps").beginArray();
+                    for (int step = 0; step < stepsPerScenario; step++) {
+                        json.beginObject();
+                        json.name("keyword").value("* ");
+                        json.name("name").value("match response.id == " + step);
+                        json.name("line").value(scenario * 10 + step + 1);
+                        json.name("doc_string").beginObject()
+                                .name("content_type").value("")
+                                .name("value").value("{\"id\":" + step + ",\"name\":\"synthetic\"}")
+                                .endObject();
+                        json.name("result").beginObject();
+                        json.name("duration").value(1000000L + random.nextInt(50000000));
+                        if (step == failedStep) {
+                            json.name("status").value("failed");
+                            json.name("error_message").value("path: $.id, actual: " + step + ", expected: " + (step + 1)
+                                    + ", reason: not equal");
+                        } else {
+                            json.name("status").value(failedStep >= 0 && step > failedStep ? "skipped" : "passed");
+                        }
+                        json.endObject();
+                        json.endObject();
+                    }
+                    json.endArray();
+                    json.endObject();
+                }
+                json.endArray();
+                json.endObject().endArray();
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package utils.testrail.standin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for the subset of the TestRail v2 API used by testrail-api-java-client
+ *
+ * Supports projects, runs, tests, cases, case/result fields and results for a single project, holding everything in
+ * memory. Every call is recorded, and latency, server errors and rate limiting (429) can be injected, either at random
+ * or for the next calls of a method, so uploads can be measured (and tested) without a real TestRail instance.
+ *
+ * NOTE: Results for cases which are not included in the run are rejected (400), as TestRail does
+ */
+public class TestRailStandIn {
+    private static final String API_PREFIX = "/api/v2/";
+
+    private final Gson gson = new Gson();
+    private final String projectName;
+    private final Map<Integer, StandInRun> runs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger results = new AtomicInteger();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<String, Queue<Integer>> failures = new ConcurrentHashMap<>();
+    private HttpServer server;
+    private ExecutorService executor;
+    private volatile long latencyMilliseconds;
+    private volatile double errorRate;
+    private volatile double rateLimitRate;
+
+    public TestRailStandIn(String projectName) {
+        this.projectName = projectName;
+    }
+
+    /**
+     * Starts the server on a free port of the loopback interface
+     */
+    public TestRailStandIn start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "testrail-stand-in");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Url to use as testrail.url
+     */
+    public String getUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * @param latencyMilliseconds Time added to every response
+     */
+    public TestRailStandIn setLatency(long latencyMilliseconds) {
+        this.latencyMilliseconds = latencyMilliseconds;
+        return this;
+    }
+
+    /**
+     * @param errorRate Proportion of requests (0 to 1) which fail with 500
+     */
+    public TestRailStandIn setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @param rateLimitRate Proportion of requests (0 to 1) which are throttled with 429
+     */
+    public TestRailStandIn setRateLimitRate(double rateLimitRate) {
+        this.rateLimitRate = rateLimitRate;
+        return this;
+    }
+
+    /**
+     * Fails the next calls of an API method, before any random failure is injected
+     * @param method API method, e.g. "add_results_for_cases"
+     * @param status Status of each failure: 429 (asking to retry after 1 second) or an error such as 500
+     * @param count Number of calls to fail
+     */
+    public TestRailStandIn failNext(String method, int status, int count) {
+        Queue<Integer> statuses = failures.computeIfAbsent(method, key -> new ConcurrentLinkedQueue<>());
+        for (int i = 0; i < count; i++) {
+            statuses.add(status);
+        }
+        return this;
+    }
+
+    /**
+     * @return Number of requests received, including those failed by injection
+     */
+    public int getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return Number of results accepted
+     */
+    public int getResultCount() {
+        return results.get();
+    }
+
+    /**
+     * @return Number of requests received per API method, e.g. "add_results_for_cases"
+     */
+    public Map<String, Integer> getCalls() {
+        Map<String, Integer> counts = new TreeMap<>();
+        calls.forEach((method, count) -> counts.put(method, count.get()));
+        return counts;
+    }
+
+    /**
+     * @return Ids of the cases currently included in each run
+     */
+    public Map<Integer, List<Integer>> getRunCaseIds() {
+        Map<Integer, List<Integer>> caseIds = new TreeMap<>();
+        runs.forEach((id, run) -> caseIds.put(id, new ArrayList<>(run.caseIds)));
+        return caseIds;
+    }
+
+    /**
+     * Clears the recorded calls, keeping the runs
+     */
+    public void resetCalls() {
+        calls.clear();
+        requests.set(0);
+        results.set(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String query = exchange.getRequestURI().getRawQuery();
+            String path = query == null ? "" : query.split("&")[0];
+            String[] parts = (path.startsWith(API_PREFIX) ? path.substring(API_PREFIX.length()) : path).split("/");
+            String method = parts[0];
+            requests.incrementAndGet();
+            calls.computeIfAbsent(method, key -> new AtomicInteger()).incrementAndGet();
+
+            if (latencyMilliseconds > 0) {
+                Thread.sleep(latencyMilliseconds);
+            }
+            Queue<Integer> statuses = failures.get(method);
+            Integer status = statuses == null ? null : statuses.poll();
+            double random = ThreadLocalRandom.current().nextDouble();
+            if (status == null && random < rateLimitRate) {
+                status = 429;
+            } else if (status == null && random < rateLimitRate + errorRate) {
+                status = 500;
+            }
+            if (status != null) {
+                respond(exchange, status, error(status == 429 ? "API Rate Limit Exceeded - Retry after 1 seconds" : "Injected failure"));
+                return;
+            }
+
+            JsonObject body = readBody(exchange);
+            respond(exchange, 200, dispatch(method, parts, body));
+        } catch (StandInException e) {
+            respond(exchange, e.status, error(e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, error("Interrupted"));
+        } catch (RuntimeException e) {
+            respond(exchange, 400, error(String.valueOf(e.getMessage())));
+        }
+    }
+
+    private JsonElement dispatch(String method, String[] parts, JsonObject body) {
+        switch (method) {
+            case "get_projects":
+                JsonArray projects = new JsonArray();
+                projects.add(project());
+                return projects;
+            case "get_project":
+                return project();
+            case "get_runs":
+                JsonArray projectRuns = new JsonArray();
+                runs.values().forEach(run -> projectRuns.add(run.toJson()));
+                return projectRuns;
+            case "get_run":
+                return getRun(parts).toJson();
+            case "add_run":
+                StandInRun added = new StandInRun(nextId.getAndIncrement(), body.get("name").getAsString());
+                added.setCaseIds(body.get("case_ids"));
+                runs.put(added.id, added);
+                return added.toJson();
+            case "update_run":
+                StandInRun updated = getRun(parts);
+                updated.setCaseIds(body.get("case_ids"));
+                return updated.toJson();
+            case "get_tests":
+                return getRun(parts).tests();
+            case "get_case":
+                return testCase(Integer.parseInt(parts[1]));
+            case "get_cases":
+            case "get_case_fields":
+            case "get_result_fields":
+                return new JsonArray();
+            case "add_result_for_case":
+                return addResult(getRun(parts), Integer.parseInt(parts[2]), body);
+            case "add_results_for_cases":
+                StandInRun run = getRun(parts);
+                JsonArray addedResults = new JsonArray();
+                JsonArray posted = body.getAsJsonArray("results");
+                for (JsonElement result : posted) {
+                    getCaseId(run, result.getAsJsonObject().get("case_id").getAsInt());
+                }
+                for (JsonElement result : posted) {
+                    JsonObject item = result.getAsJsonObject();
+                    addedResults.add(addResult(run, item.get("case_id").getAsInt(), item));
+                }
+                return addedResults;
+            default:
+                throw new StandInException(404, "Unknown method " + method);
+        }
+    }
+
+    private StandInRun getRun(String[] parts) {
+        StandInRun run = parts.length > 1 ? runs.get(Integer.parseInt(parts[1])) : null;
+        if (run == null) {
+            throw new StandInException(400, "Field :run_id is not a valid test run.");
+        }
+        return run;
+    }
+
+    private int getCaseId(StandInRun run, int caseId) {
+        if (!run.caseIds.contains(caseId)) {
+            throw new StandInException(400, "Field :case_id " + caseId + " is not part of run " + run.id);
+        }
+        return caseId;
+    }
+
+    private JsonObject addResult(StandInRun run, int caseId, JsonObject body) {
+        getCaseId(run, caseId);
+        results.incrementAndGet();
+        JsonObject result = new JsonObject();
+        result.addProperty("id", nextId.getAndIncrement());
+        result.addProperty("test_id", run.testId(caseId));
+        result.add("status_id", body.get("status_id"));
+        result.add("comment", body.get("comment"));
+        return result;
+    }
+
+    private JsonObject project() {
+        JsonObject project = new JsonObject();
+        project.addProperty("id", 1);
+        project.addProperty("name", projectName);
+        project.addProperty("is_completed", false);
+        project.addProperty("suite_mode", 1);
+        return project;
+    }
+
+    private static JsonObject testCase(int caseId) {
+        JsonObject testCase = new JsonObject();
+        testCase.addProperty("id", caseId);
+        testCase.addProperty("title", "Case " + caseId);
+        testCase.addProperty("section_id", 1);
+        testCase.addProperty("suite_id", 1);
+        return testCase;
+    }
+
+    private static JsonObject error(String message) {
+        JsonObject error = new JsonObject();
+        error.addProperty("error", message);
+        return error;
+    }
+
+    private static JsonObject readBody(HttpExchange exchange) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream inputStream = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            for (int read = inputStream.read(buffer); read > 0; read = inputStream.read(buffer)) {
+                body.write(buffer, 0, read);
+            }
+        }
+        if (body.size() == 0) return new JsonObject();
+        JsonElement json = new JsonParser().parse(new String(body.toByteArray(), StandardCharsets.UTF_8));
+        return json.isJsonObject() ? json.getAsJsonObject() : new JsonObject();
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonElement body) throws IOException {
+        byte[] bytes = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static class StandInRun {
+        private final int id;
+        private final String name;
+        private volatile Set<Integer> caseIds = new LinkedHashSet<>();
+
+        StandInRun(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+
+        void setCaseIds(JsonElement json) {
+            Set<Integer> ids = new LinkedHashSet<>();
+            if (json != null && json.isJsonArray()) {
+                json.getAsJsonArray().forEach(caseId -> ids.add(caseId.getAsInt()));
+            }
+            caseIds = ids;
+        }
+
+        int testId(int caseId) {
+            return id * 1000000 + caseId;
+        }
+
+        JsonArray tests() {
+            JsonArray tests = new JsonArray();
+            for (int caseId : new ArrayList<>(caseIds)) {
+                JsonObject test = new JsonObject();
+                test.addProperty("id", testId(caseId));
+                test.addProperty("case_id", caseId);
+                test.addProperty("run_id", id);
+                test.addProperty("status_id", 3);
+                test.addProperty("title", "Case " + caseId);
+                tests.add(test);
+            }
+            return tests;
+        }
+
+        JsonObject toJson() {
+            JsonObject run = new JsonObject();
+            run.addProperty("id", id);
+            run.addProperty("name", name);
+            run.addProperty("project_id", 1);
+            run.addProperty("suite_id", 1);
+            run.addProperty("include_all", false);
+            run.addProperty("is_completed", false);
+            return run;
+        }
+    }
+
+    private static class StandInException extends RuntimeException {
+        private final int status;
+
+        StandInException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package utils.testrail.standin;
+
+import utils.testrail.handlers.TestRailIntegrationImp;
+import utils.testrail.report.ReportProcessor;
+import utils.testrail.report.ScenarioResults;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static utils.testrail.Constants.*;
+
+/**
+ * Measures how quickly the results of a synthetic report set are uploaded to a local TestRail stand-in
+ *
+ * Usage: TestRailUploadBenchmark [cases] [latency ms] [error rate] [rate limit rate] [upload threads]
+ * (defaults: 2000 cases, 20 ms latency, no errors, no throttling, 4 threads)
+ *
+ * Prints the uploads per second, the total number of requests and the requests per API method.
+ */
+public class TestRailUploadBenchmark {
+    private static final String PROJECT = "Benchmark";
+    private static final int SCENARIOS_PER_FEATURE = 40;
+
+    private TestRailUploadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cases = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long latency = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        double errorRate = args.length > 2 ? Double.parseDouble(args[2]) : 0;
+        double rateLimitRate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : 4;
+
+        Path workDir = Files.createTempDirectory("testrail-benchmark");
+        Path reportDir = workDir.resolve("reports");
+        int features = Math.max((cases + SCENARIOS_PER_FEATURE - 1) / SCENARIOS_PER_FEATURE, 1);
+        SyntheticReports.write(reportDir, features, SCENARIOS_PER_FEATURE, 8, 0.1, 1000, 42);
+
+        TestRailStandIn standIn = new TestRailStandIn(PROJECT)
+                .setLatency(latency)
+                .setErrorRate(errorRate)
+                .setRateLimitRate(rateLimitRate)
+                .start();
+        try {
+            long start = System.nanoTime();
+            ScenarioResults results = new ReportProcessor(reportDir.toString()).analyseReports();
+            long parsed = System.nanoTime();
+
+            TestRailIntegrationImp imp = new TestRailIntegrationImp(getProperties(standIn, workDir, threads));
+            imp.upload(results);
+            imp.awaitUploads();
+            long uploaded = System.nanoTime();
+
+            double parseSeconds = (parsed - start) / 1e9;
+            double uploadSeconds = (uploaded - parsed) / 1e9;
+            System.out.printf("Scenarios: %d in %d report files, latency %d ms, error rate %.2f, 429 rate %.2f, %d threads%n",
+                    results.size(), features, latency, errorRate, rateLimitRate, threads);
+            System.out.printf("Parse:  %.3f s%n", parseSeconds);
+            System.out.printf("Upload: %.3f s (%.1f results/s)%n", uploadSeconds, standIn.getResultCount() / uploadSeconds);
+            System.out.printf("Results accepted: %d%n", standIn.getResultCount());
+            System.out.printf("Requests: %d%n", standIn.getRequestCount());
+            for (Map.Entry<String, Integer> call : standIn.getCalls().entrySet()) {
+                System.out.printf("  %-24s %d%n", call.getKey(), call.getValue());
+            }
+        } finally {
+            standIn.stop();
+            deleteRecursively(workDir);
+        }
+    }
+
+    private static Properties getProperties(TestRailStandIn standIn, Path workDir, int threads) {
+        Properties properties = new Properties();
+        properties.setProperty(TESTRAIL_URL, standIn.getUrl());
+        properties.setProperty(TESTRAIL_USER, "benchmark");
+        properties.setProperty(TESTRAIL_PASS, "benchmark");
+        properties.setProperty(PROJECT_NAME, PROJECT);
+        properties.setProperty(DEFAULT_PREFIX, "Benchmark");
+        properties.setProperty(DATETIME_FORMAT, "dd-MM-yyyy HH:mm:ss");
+        properties.setProperty(UPLOAD_THREADS, String.valueOf(threads));
+        // Measure the uploader itself rather than the configured rate limit
+        properties.setProperty(RATE_LIMIT, "0");
+        properties.setProperty(CACHE_FILE, "");
+        properties.setProperty(OUTBOX_DIR, workDir.resolve("outbox").toString());
+        return properties;
+    }
+
+    private static void deleteRecursively(Path path) throws IOException {
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> children = Files.list(path)) {
+                for (Path child : (Iterable<Path>) children::iterator) {
+                    deleteRecursively(child);
+                }
+            }
+        }
+        Files.deleteIfExists(path);
+    }
+}
@@ -0,0 +1,116 @@
+package utils.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveConcurrencyTest {
+
+    /**
+     * Runs a window of scenarios (one per slot), one after another
+     */
+    private void runWindow(final AdaptiveConcurrency concurrency, final long latencyMillis, final Double recordedMillis,
+                           final int overloaded) throws InterruptedException {
+        final int scenarios = concurrency.getLimit();
+        for (int i = 0; i < scenarios; i++) {
+            concurrency.acquire();
+        }
+        for (int i = 0; i < scenarios; i++) {
+            concurrency.release(latencyMillis, recordedMillis, i < overloaded);
+        }
+    }
+
+    private void runWindow(final AdaptiveConcurrency concurrency, final long latencyMillis, final int overloaded)
+            throws InterruptedException {
+        runWindow(concurrency, latencyMillis, 10.0, overloaded);
+    }
+
+    /**
+     * Verifies the limit rises by one after a healthy window, and is cut after overload errors or when scenarios take
+     * more than twice their recorded durations
+     */
+    @Test
+    public void testAdjust() throws InterruptedException {
+        final AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 1, 4);
+        Assert.assertEquals(2, concurrency.getLimit());
+
+        runWindow(concurrency, 10, 0);
+        Assert.assertEquals(3, concurrency.getLimit());
+        runWindow(concurrency, 10, 0);
+        Assert.assertEquals(4, concurrency.getLimit());
+        runWindow(concurrency, 10, 0);
+        Assert.assertEquals("Limited to the maximum", 4, concurrency.getLimit());
+
+        runWindow(concurrency, 10, 1);
+        Assert.assertEquals("Cut after overload errors", 2, concurrency.getLimit());
+
+        runWindow(concurrency, 10, 0);
+        Assert.assertEquals(3, concurrency.getLimit());
+        runWindow(concurrency, 25, 0);
+        Assert.assertEquals("Cut after latency more than doubled", 2, concurrency.getLimit());
+
+        runWindow(concurrency, 10, 2);
+        runWindow(concurrency, 10, 1);
+        Assert.assertEquals("Limited to the minimum", 1, concurrency.getLimit());
+
+        final String summary = concurrency.getSummary();
+        Assert.assertTrue(summary, summary.startsWith("adaptive 1-4: final 1,"));
+        Assert.assertTrue(summary, summary.contains("lowest 1, highest 4"));
+    }
+
+    /**
+     * Verifies scenarios are compared with their own recorded durations, so short scenarios following long ones (as
+     * the longest features start first) do not cut the limit, and scenarios without history only count errors
+     */
+    @Test
+    public void testRecordedDurations() throws InterruptedException {
+        final AdaptiveConcurrency concurrency = new AdaptiveConcurrency(2, 1, 8);
+        runWindow(concurrency, 100, 10_000.0, 0);
+        Assert.assertEquals("Faster than recorded", 3, concurrency.getLimit());
+        runWindow(concurrency, 12_000, 10_000.0, 0);
+        Assert.assertEquals("Slower, but within the tolerance", 4, concurrency.getLimit());
+        runWindow(concurrency, 150, 100.0, 0);
+        Assert.assertEquals(5, concurrency.getLimit());
+
+        runWindow(concurrency, 60_000, null, 0);
+        Assert.assertEquals("No recorded durations", 6, concurrency.getLimit());
+
+        // Only the scenarios with recorded durations are compared
+        for (int i = 0; i < 6; i++) {
+            concurrency.acquire();
+        }
+        concurrency.release(50, 10.0, false);
+        for (int i = 1; i < 6; i++) {
+            concurrency.release(10, null, false);
+        }
+        Assert.assertEquals("Cut after a scenario took 5 times its recorded duration", 4, concurrency.getLimit());
+        Assert.assertTrue(concurrency.getSummary(), concurrency.getSummary().contains("highest 6"));
+    }
+
+    /**
+     * Verifies a scenario waits until a running scenario completes when the limit is reached
+     */
+    @Test
+    public void testAcquireWaits() throws InterruptedException {
+        final AdaptiveConcurrency concurrency = new AdaptiveConcurrency(1, 1, 1);
+        concurrency.acquire();
+
+        final CountDownLatch acquired = new CountDownLatch(1);
+        final Thread thread = new Thread(() -> {
+            try {
+                concurrency.acquire();
+                acquired.countDown();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        Assert.assertFalse(acquired.await(200, TimeUnit.MILLISECONDS));
+        concurrency.release(10, false);
+        Assert.assertTrue(acquired.await(5, TimeUnit.SECONDS));
+        thread.join();
+    }
+}
@@ -0,0 +1,155 @@
+package utils.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class DurationHistoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Writes a report of a single feature with one scenario of two steps
+     */
+    private void writeReport(final Path reportDir, final String uri, final long stepNanos) throws IOException {
+        final String step = "{\"keyword\":\"* \",\"name\":\"step\",\"result\":{\"status\":\"passed\",\"duration\":" + stepNanos + "}}";
+        final String report = "[{\"uri\":\"" + uri + "\",\"name\":\"" + uri + "\",\"elements\":[{\"type\":\"scenario\","
+                + "\"name\":\"[C1] - Scenario\",\"steps\":[" + step + "," + step + "]}]}]";
+        Files.write(reportDir.resolve(uri.replace('/', '.') + ".json"), report.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path writeFeature(final Path featureDir, final String name) throws IOException {
+        final Path feature = featureDir.resolve(name);
+        Files.write(feature, "Feature: f\n  Scenario: [C1] - Scenario\n".getBytes(StandardCharsets.UTF_8));
+        return feature;
+    }
+
+    /**
+     * Verifies features are in file order without history, then longest first once durations are recorded, with
+     * features without history given the average duration
+     */
+    @Test
+    public void testOrder() throws IOException {
+        final Path featureDir = folder.newFolder("features").toPath();
+        final Path reportDir = folder.newFolder("reports").toPath();
+        final String historyFile = folder.getRoot().toPath().resolve("history/durations.properties").toString();
+        final Path a = writeFeature(featureDir, "a.feature");
+        final Path b = writeFeature(featureDir, "b.feature");
+        final Path c = writeFeature(featureDir, "c.feature");
+        final Path d = writeFeature(featureDir, "d.feature");
+        final List<String> paths = Collections.singletonList(featureDir.toString());
+
+        DurationHistory history = DurationHistory.load(historyFile);
+        Assert.assertTrue(history.isEmpty());
+        Assert.assertSame(paths, history.order(paths));
+
+        // Durations are in nanoseconds, and exceed Integer.MAX_VALUE (over 2.1 seconds)
+        writeReport(reportDir, "features/a.feature", 1_000_000_000L);
+        writeReport(reportDir, "features/b.feature", 5_000_000_000L);
+        writeReport(reportDir, "features/d.feature", 3_000_000_000L);
+        Assert.assertEquals(3, history.record(reportDir.toString(), 0));
+        history.save();
+
+        history = DurationHistory.load(historyFile);
+        Assert.assertEquals(10000.0, history.getFeatureDuration("classpath:features/b.feature"), 0.1);
+        // c has no history, so is given the average (6 seconds), ahead of d (6 seconds) as it is first in file order
+        Assert.assertEquals(Arrays.asList(b.toString(), c.toString(), d.toString(), a.toString()),
+                history.order(paths));
+
+        // The latest duration is smoothed with the previous one
+        writeReport(reportDir, "features/b.feature", 1_000_000_000L);
+        history.record(reportDir.toString(), 0);
+        Assert.assertEquals(6000.0, history.getFeatureDuration(b.toString()), 0.1);
+    }
+
+    /**
+     * Verifies features which cannot be read are left in their original order
+     */
+    @Test
+    public void testOrderUnreadable() throws IOException {
+        final Path reportDir = folder.newFolder("reports").toPath();
+        writeReport(reportDir, "features/a.feature", 1_000_000_000L);
+        final DurationHistory history = DurationHistory.load(folder.getRoot().toPath().resolve("durations.properties").toString());
+        Assert.assertEquals(1, history.record(reportDir.toString(), 0));
+
+        final List<String> paths = Arrays.asList(folder.getRoot().toPath().resolve("missing").toString(), "classpath:features");
+        Assert.assertSame(paths, history.order(paths));
+    }
+
+    /**
+     * Verifies scenario durations include the Background reported before each scenario, and are found from any form
+     * of the feature path
+     */
+    @Test
+    public void testScenarioDuration() throws IOException {
+        final Path reportDir = folder.newFolder("reports").toPath();
+        final String background = "{\"type\":\"background\",\"name\":\"\",\"steps\":[{\"keyword\":\"* \",\"name\":\"step\","
+                + "\"result\":{\"status\":\"passed\",\"duration\":1000000000}}]}";
+        final String report = "[{\"uri\":\"features/a.feature\",\"name\":\"a\",\"elements\":["
+                + background + ",{\"type\":\"scenario\",\"name\":\"[C1] - One\",\"steps\":[{\"keyword\":\"* \","
+                + "\"name\":\"step\",\"result\":{\"status\":\"passed\",\"duration\":2000000000}}]},"
+                + background + ",{\"type\":\"scenario\",\"name\":\"[C2] - Two\",\"steps\":[]}]}]";
+        Files.write(reportDir.resolve("a.json"), report.getBytes(StandardCharsets.UTF_8));
+
+        final DurationHistory history = DurationHistory.load(folder.getRoot().toPath().resolve("none").toString());
+        Assert.assertEquals(1, history.record(reportDir.toString(), 0));
+        Assert.assertEquals(3000.0, history.getScenarioDuration("classpath:features/a.feature", "[C1] - One"), 0.1);
+        Assert.assertEquals(1000.0, history.getScenarioDuration("/work/features/a.feature", "[C2] - Two"), 0.1);
+        Assert.assertEquals(4000.0, history.getFeatureDuration("features/a.feature"), 0.1);
+        Assert.assertNull(history.getScenarioDuration("features/a.feature", "[C3] - Three"));
+        Assert.assertNull(history.getScenarioDuration("features/b.feature", "[C1] - One"));
+    }
+
+    /**
+     * Verifies durations of features which no longer exist within the feature folders are removed, along with their
+     * scenarios, while those of features in other folders are kept
+     */
+    @Test
+    public void testPrune() throws IOException {
+        final Path featureDir = folder.newFolder("features").toPath();
+        final Path postsDir = Files.createDirectories(featureDir.resolve("api-posts"));
+        final Path reportDir = folder.newFolder("reports").toPath();
+        final String historyFile = folder.getRoot().toPath().resolve("durations.properties").toString();
+        writeFeature(postsDir, "a.feature");
+        writeReport(reportDir, "features/api-posts/a.feature", 1_000_000L);
+        writeReport(reportDir, "features/api-posts/renamed.feature", 1_000_000L);
+        writeReport(reportDir, "features/api-users/b.feature", 1_000_000L);
+
+        DurationHistory history = DurationHistory.load(historyFile);
+        Assert.assertEquals(3, history.record(reportDir.toString(), 0));
+        Assert.assertEquals(2, history.prune(Collections.singletonList(postsDir.toString() + "/")));
+        Assert.assertEquals(0, history.prune(Collections.singletonList(postsDir.toString())));
+        history.save();
+
+        history = DurationHistory.load(historyFile);
+        Assert.assertNotNull(history.getFeatureDuration("features/api-posts/a.feature"));
+        Assert.assertNotNull(history.getScenarioDuration("features/api-posts/a.feature", "[C1] - Scenario"));
+        Assert.assertNull(history.getFeatureDuration("features/api-posts/renamed.feature"));
+        Assert.assertNull(history.getScenarioDuration("features/api-posts/renamed.feature", "[C1] - Scenario"));
+        Assert.assertNotNull("Not within the feature folder", history.getFeatureDuration("features/api-users/b.feature"));
+
+        // Every feature is within the parent folder
+        Assert.assertEquals(2, history.prune(Collections.singletonList(featureDir.toString())));
+        Assert.assertNull(history.getFeatureDuration("features/api-users/b.feature"));
+    }
+
+    /**
+     * Verifies paths are converted to a comparable form
+     */
+    @Test
+    public void testNormalise() {
+        Assert.assertEquals("features/a.feature", DurationHistory.normalise("classpath:features/a.feature"));
+        Assert.assertEquals("features/a.feature", DurationHistory.normalise("classpath:/features/a.feature"));
+        Assert.assertEquals("dir/features/a.feature", DurationHistory.normalise("\\dir\\features\\a.feature"));
+    }
+}
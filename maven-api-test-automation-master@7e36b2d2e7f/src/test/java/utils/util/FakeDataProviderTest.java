@@ -0,0 +1,145 @@
+package utils.util;
+
+import com.intuit.karate.Logger;
+import org.junit.Test;
+import org.junit.Assert;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+public class FakeDataProviderTest {
+
+    protected static Logger logger = new Logger();
+
+    /**
+     * Verifies the same FakeData instance is returned on the same thread for the same locale, and that the default
+     * locale is en-AU
+     */
+    @Test
+    public void testSameThread() {
+        final FakeData fakeData = FakeDataProvider.get();
+        Assert.assertNotNull(fakeData);
+        Assert.assertSame(fakeData, FakeDataProvider.get());
+        Assert.assertSame(fakeData, FakeDataProvider.get("en-AU"));
+        Assert.assertSame(fakeData, FakeDataProvider.get(FakeData.DEFAULT_LOCALE));
+
+        final FakeData japanese = FakeDataProvider.get(Locale.JAPANESE);
+        Assert.assertNotSame(fakeData, japanese);
+        Assert.assertSame(japanese, FakeDataProvider.get("ja"));
+
+        final String value = japanese.name().fullName();
+        logger.info("ja: name.fullName() = {}", value);
+        Assert.assertNotNull(value);
+    }
+
+    /**
+     * Verifies each thread is given its own FakeData instance
+     */
+    @Test
+    public void testOtherThread() throws InterruptedException {
+        final FakeData fakeData = FakeDataProvider.get();
+        final AtomicReference<FakeData> other = new AtomicReference<>();
+
+        final Thread thread = new Thread(() -> other.set(FakeDataProvider.get()));
+        thread.start();
+        thread.join();
+
+        Assert.assertNotNull(other.get());
+        Assert.assertNotSame(fakeData, other.get());
+        Assert.assertNotNull(other.get().address().fullAddress());
+    }
+
+    /**
+     * Verifies that with apitest.fakedata.seed set, a scenario gets the same values whichever thread runs it, and
+     * however many times it runs
+     */
+    @Test
+    public void testSeededScenario() throws InterruptedException {
+        System.setProperty("apitest.fakedata.seed", "1234");
+        try {
+            Support.refreshSettings();
+            final List<String> expected = scenarioValues(() -> FakeDataProvider.forScenario("seeded.feature:Seeded scenario"));
+
+            final AtomicReference<List<String>> actual = new AtomicReference<>();
+            final Thread thread = new Thread(() -> actual.set(
+                    scenarioValues(() -> FakeDataProvider.forScenario("seeded.feature:Seeded scenario"))));
+            thread.start();
+            thread.join();
+
+            logger.info("seeded values = {}", expected);
+            Assert.assertEquals(expected, actual.get());
+            Assert.assertEquals(expected, scenarioValues(() -> FakeDataProvider.forScenario("seeded.feature:Seeded scenario")));
+            Assert.assertNotEquals(expected, scenarioValues(() -> FakeDataProvider.forScenario("seeded.feature:Other scenario")));
+        } finally {
+            System.clearProperty("apitest.fakedata.seed");
+            Support.refreshSettings();
+        }
+    }
+
+    /**
+     * Verifies that with apitest.fakedata.seed set, each Examples row of an outline gets its own values, which do not
+     * depend on the order in which the rows run, or on which thread
+     */
+    @Test
+    public void testSeededRowsOutOfOrder() throws Exception {
+        System.setProperty("apitest.fakedata.seed", "1234");
+        final int rows = 8;
+        try {
+            Support.refreshSettings();
+            final List<List<String>> expected = new ArrayList<>();
+            for (int row = 0; row < rows; row++) {
+                expected.add(rowValues(row));
+            }
+            Assert.assertEquals(rows, new HashSet<>(expected).size());
+
+            // Rows in reverse order, then concurrently (in whatever order the threads start)
+            for (int row = rows - 1; row >= 0; row--) {
+                Assert.assertEquals(expected.get(row), rowValues(row));
+            }
+            final ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                final List<Future<List<String>>> actual = new ArrayList<>();
+                for (int row = 0; row < rows; row++) {
+                    final int index = row;
+                    actual.add(executor.submit(() -> rowValues(index)));
+                }
+                for (int row = 0; row < rows; row++) {
+                    Assert.assertEquals(expected.get(row), actual.get(row).get());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            System.clearProperty("apitest.fakedata.seed");
+            Support.refreshSettings();
+        }
+    }
+
+    /**
+     * Runs an Examples row as Karate does: FakeDataHook identifies the row, then karate-config.js gets fakeData
+     */
+    private static List<String> rowValues(final int row) {
+        FakeDataProvider.forScenarioRow("features/api-posts/posts.feature", 53, row);
+        try {
+            return scenarioValues(() -> FakeDataProvider.forScenario("posts.feature:[CNNNNN] - Verify getting a specific post"));
+        } finally {
+            FakeDataProvider.endScenarioRow();
+        }
+    }
+
+    private static List<String> scenarioValues(final Supplier<FakeData> forScenario) {
+        final FakeData fakeData = forScenario.get();
+        final List<String> values = new ArrayList<>();
+        values.add(fakeData.name().fullName());
+        values.add(fakeData.address().fullAddress());
+        values.add(fakeData.internet().emailAddress());
+        return values;
+    }
+}
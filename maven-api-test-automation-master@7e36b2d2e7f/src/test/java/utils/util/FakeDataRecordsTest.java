@@ -0,0 +1,74 @@
+package utils.util;
+
+import com.intuit.karate.Logger;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+public class FakeDataRecordsTest {
+
+    protected static Logger logger = new Logger();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies records generated in parallel with the same seed are identical, one compact JSON object per line
+     */
+    @Test
+    public void testGenerateSeeded() throws IOException {
+        final Path first = folder.getRoot().toPath().resolve("first.jsonl");
+        final Path second = folder.getRoot().toPath().resolve("second.jsonl");
+        FakeDataRecords.generate(first, 2500, 3, 42L);
+        FakeDataRecords.generate(second, 2500, 2, 42L);
+
+        final List<String> lines = Files.readAllLines(first, StandardCharsets.UTF_8);
+        logger.info("first record = {}", lines.get(0));
+        Assert.assertEquals(2500, lines.size());
+        Assert.assertEquals(lines, Files.readAllLines(second, StandardCharsets.UTF_8));
+        Assert.assertTrue(lines.get(0).startsWith("{\"name\":"));
+        Assert.assertTrue(lines.get(0).contains("\"suite\":\"Penthouse\""));
+    }
+
+    /**
+     * Verifies the feeder starts again from the first record after the last one
+     */
+    @Test
+    public void testFeederIsCircular() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("users.jsonl");
+        FakeDataRecords.generate(file, 3, 1, null);
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        try (FakeDataFeeder feeder = new FakeDataFeeder(file, "user")) {
+            for (int i = 0; i < 7; i++) {
+                final Map<String, Object> record = feeder.next();
+                Assert.assertTrue(feeder.hasNext());
+                Assert.assertEquals(lines.get(i % 3), record.get("user"));
+            }
+        }
+    }
+
+    /**
+     * Verifies an existing file with enough records is not generated again
+     */
+    @Test
+    public void testEnsure() throws IOException {
+        final Path file = folder.getRoot().toPath().resolve("users.jsonl");
+        FakeDataRecords.generate(file, 5, 1, null);
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+
+        FakeDataRecords.ensure(file, 5);
+        Assert.assertEquals(lines, Files.readAllLines(file, StandardCharsets.UTF_8));
+
+        FakeDataRecords.ensure(file, 10);
+        Assert.assertEquals(10, Files.readAllLines(file, StandardCharsets.UTF_8).size());
+    }
+}
@@ -0,0 +1,196 @@
+package utils.util;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class FeatureSharderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Verifies scenarios are counted, with each Examples row of a Scenario Outline counted as a scenario
+     */
+    @Test
+    public void testCountScenarios() {
+        final List<String> lines = Arrays.asList(
+                "@USERS",
+                "Feature: Users",
+                "  Background:",
+                "    * def table =",
+                "      | not | an | example |",
+                "  Scenario: [C1] - One",
+                "    * print 'one'",
+                "  # Scenario: commented out",
+                "  Scenario Outline: [C2] - Outline",
+                "    * print '<value>'",
+                "    Examples:",
+                "      | value |",
+                "      | a     |",
+                "      | b     |",
+                "    @EXTRA",
+                "    Examples:",
+                "      | value |",
+                "      | c     |",
+                "  Scenario: [C3] - Three",
+                "    * table data",
+                "      | x |",
+                "      | y |");
+        Assert.assertEquals(5, FeatureSharder.countScenarios(lines));
+        Assert.assertEquals(0, FeatureSharder.countScenarios(Collections.singletonList("Feature: Empty")));
+    }
+
+    /**
+     * Verifies only the scenarios selected by the tags are counted, with feature and Examples tags inherited
+     */
+    @Test
+    public void testCountScenariosWithTags() {
+        final List<String> lines = Arrays.asList(
+                "@USERS",
+                "Feature: Users",
+                "  @LIST @SMOKE # comment",
+                "  Scenario: [C1] - One",
+                "    * print 'one'",
+                "  @ignore",
+                "  Scenario: [C2] - Ignored",
+                "    * print 'two'",
+                "  @LIST",
+                "  Scenario Outline: [C3] - Outline",
+                "    * print '<value>'",
+                "    Examples:",
+                "      | value |",
+                "      | a     |",
+                "      | b     |",
+                "    @NO-DATA",
+                "    Examples:",
+                "      | value |",
+                "      | c     |",
+                "  Scenario Outline: [C4] - No examples",
+                "    * print 'four'");
+        final List<String> ignore = Collections.singletonList("~@ignore");
+        Assert.assertEquals(6, FeatureSharder.countScenarios(lines));
+        Assert.assertEquals(5, FeatureSharder.countScenarios(lines, ignore));
+        Assert.assertEquals(4, FeatureSharder.countScenarios(lines, Arrays.asList("@USERS", "~@ignore", "~@NO-DATA")));
+        Assert.assertEquals(3, FeatureSharder.countScenarios(lines, Arrays.asList("@LIST", "~@NO-DATA")));
+        Assert.assertEquals(2, FeatureSharder.countScenarios(lines, Arrays.asList("@SMOKE,@NO-DATA")));
+        Assert.assertEquals(0, FeatureSharder.countScenarios(lines, Collections.singletonList("@POSTS")));
+    }
+
+    /**
+     * Verifies features are balanced by scenario count, and the same shards are computed whatever the input order
+     */
+    @Test
+    public void testShard() {
+        final List<FeatureSharder.Feature> features = new ArrayList<>(Arrays.asList(
+                new FeatureSharder.Feature("a", 7),
+                new FeatureSharder.Feature("b", 5),
+                new FeatureSharder.Feature("c", 4),
+                new FeatureSharder.Feature("d", 3),
+                new FeatureSharder.Feature("e", 3),
+                new FeatureSharder.Feature("f", 2)));
+        final List<List<FeatureSharder.Feature>> shards = FeatureSharder.shard(features, 2);
+        Assert.assertEquals("[a (7), d (3), f (2)]", shards.get(0).toString());
+        Assert.assertEquals("[b (5), c (4), e (3)]", shards.get(1).toString());
+
+        Collections.reverse(features);
+        Assert.assertEquals(shards.toString(), FeatureSharder.shard(features, 2).toString());
+
+        // More shards than features - the extra shards are empty
+        Assert.assertTrue(FeatureSharder.shard(features, 8).get(7).isEmpty());
+    }
+
+    /**
+     * Verifies every feature is selected by exactly one shard
+     */
+    @Test
+    public void testSelect() throws IOException {
+        final Path root = folder.newFolder("features").toPath();
+        for (int i = 1; i <= 5; i++) {
+            final Path dir = Files.createDirectories(root.resolve("api-" + (i % 2)));
+            final StringBuilder feature = new StringBuilder("Feature: " + i + "\n");
+            for (int scenario = 0; scenario < i; scenario++) {
+                feature.append("  Scenario: [C").append(i * 10 + scenario).append("] - Scenario\n");
+            }
+            Files.write(dir.resolve("feature-" + i + ".feature"), feature.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(root.resolve("README.md"), "Not a feature".getBytes(StandardCharsets.UTF_8));
+
+        final List<String> paths = Collections.singletonList(root.toString());
+        Assert.assertEquals(5, FeatureSharder.findFeatures(paths).size());
+
+        final Set<String> selected = new HashSet<>();
+        for (int shard = 0; shard < 3; shard++) {
+            for (final String path : FeatureSharder.select(paths, shard, 3)) {
+                Assert.assertTrue("Selected more than once: " + path, selected.add(path));
+            }
+        }
+        Assert.assertEquals(5, selected.size());
+
+        // Balanced on the scenarios the tags select - only feature-5 has any, so it is a shard of its own
+        Files.write(root.resolve("api-1").resolve("feature-5.feature"),
+                ("@SELECTED\n" + new String(Files.readAllBytes(root.resolve("api-1").resolve("feature-5.feature")),
+                        StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8));
+        final List<String> tags = Collections.singletonList("@SELECTED");
+        Assert.assertEquals(5, FeatureSharder.findFeatures(paths, tags).stream()
+                .mapToInt(FeatureSharder.Feature::getScenarios).sum());
+        Assert.assertEquals(1, FeatureSharder.select(paths, tags, 0, 2).size());
+        Assert.assertEquals(4, FeatureSharder.select(paths, tags, 1, 2).size());
+    }
+
+    /**
+     * Verifies an invalid shard is rejected
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidShard() throws IOException {
+        FeatureSharder.select(Collections.singletonList("classpath:features/"), 2, 2);
+    }
+
+    /**
+     * Verifies a classpath folder within a jar, whose features cannot be listed, is sharded as a single feature
+     */
+    @Test
+    public void testFeaturesInJar() throws IOException {
+        final File jar = folder.newFile("features.jar");
+        try (JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(jar))) {
+            // Directory entries, as written by the jar plugin
+            outputStream.putNextEntry(new JarEntry("jarfeatures/"));
+            outputStream.closeEntry();
+            outputStream.putNextEntry(new JarEntry("jarfeatures/users.feature"));
+            outputStream.write("Feature: Users\n  Scenario: [C1] - One\n  Scenario: [C2] - Two\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            outputStream.closeEntry();
+        }
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader loader = thread.getContextClassLoader();
+        try (URLClassLoader jarLoader = new URLClassLoader(new URL[] {jar.toURI().toURL()}, null)) {
+            thread.setContextClassLoader(jarLoader);
+            final List<FeatureSharder.Feature> features =
+                    FeatureSharder.findFeatures(Collections.singletonList("classpath:jarfeatures/"));
+            Assert.assertEquals(1, features.size());
+            Assert.assertEquals("classpath:jarfeatures", features.get(0).getPath());
+            Assert.assertEquals(1, features.get(0).getScenarios());
+        } finally {
+            thread.setContextClassLoader(loader);
+        }
+    }
+}
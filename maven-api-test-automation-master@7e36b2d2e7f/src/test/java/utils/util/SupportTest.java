@@ -487,4 +487,58 @@ public class SupportTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Verifies Support.getSettings() returns the same snapshot until Support.refreshSettings() is called
+     */
+    @Test
+    public void testGetSettingsSnapshot() {
+        final String propertyName = "apitest.configure.read.timeout.seconds";
+
+        setSystemProperty(propertyName, 5);
+        final ApiTestSettings settings = Support.refreshSettings();
+        Assert.assertSame(settings, Support.getSettings());
+        Assert.assertEquals(5000, settings.getReadTimeoutMilliseconds());
+        Assert.assertEquals("5", settings.getProperty(propertyName));
+
+        // Test - property changed - verify snapshot is unchanged until refreshed
+        setSystemProperty(propertyName, 7);
+        Assert.assertSame(settings, Support.getSettings());
+        Assert.assertEquals(5000, Support.getSettings().getReadTimeoutMilliseconds());
+        Assert.assertEquals(7000, Support.refreshSettings().getReadTimeoutMilliseconds());
+
+        clearSystemProperty(propertyName);
+        Support.refreshSettings();
+    }
+
+    /**
+     * Verifies Support.getSettings() converts values using the same rules (and defaults) as Support.getProperty()
+     */
+    @Test
+    public void testGetSettingsValues() {
+        setSystemProperty("apitest.configure.ssl", "blah");
+        setSystemProperty("apitest.configure.logPrettyRequest", false);
+        setSystemProperty("apitest.configure.connection.timeout.seconds", 3);
+        setSystemProperty("apitest.configure.connection.timeout.milliseconds", "987kjsjdf");
+        setSystemProperty("apitest.configure.proxy.non.proxy.hosts", "one,two,three");
+        setSystemProperty("apitest.tags", "@ONE&@TWO");
+        clearSystemProperty("apitest.threads");
+
+        final ApiTestSettings settings = Support.refreshSettings();
+        Assert.assertEquals(Support.getProperty("apitest.configure.ssl", true), settings.isSsl());
+        Assert.assertFalse(settings.isLogPrettyRequest());
+        Assert.assertTrue(settings.isLogPrettyResponse());
+        Assert.assertEquals(3000, settings.getConnectionTimeoutMilliseconds());
+        Assert.assertEquals(createList(new String[] { "one", "two", "three" }), settings.getProxyNonProxyHosts());
+        Assert.assertEquals(createList(new String[] { "@ONE", "@TWO" }), settings.getTags());
+        Assert.assertEquals(1, settings.getThreads());
+
+        clearSystemProperty("apitest.configure.ssl");
+        clearSystemProperty("apitest.configure.logPrettyRequest");
+        clearSystemProperty("apitest.configure.connection.timeout.seconds");
+        clearSystemProperty("apitest.configure.connection.timeout.milliseconds");
+        clearSystemProperty("apitest.configure.proxy.non.proxy.hosts");
+        clearSystemProperty("apitest.tags");
+        Support.refreshSettings();
+    }
+}
@@ -4,7 +4,10 @@ import com.intuit.karate.gatling.KarateProtocol
 import com.intuit.karate.gatling.PreDef._
 import io.gatling.core.Predef._
 import io.gatling.core.structure.ScenarioBuilder
+import utils.util.{FakeDataFeeder, FakeDataRecords}
 
+import java.nio.file.Paths
+import scala.collection.JavaConverters._
 import scala.concurrent.duration._
 
 class UsersPostScenario_EXAMPLE_15 extends Simulation {
@@ -44,8 +47,16 @@ class UsersPostScenario_EXAMPLE_15 extends Simulation {
     // Get Transaction names
     protocol.nameResolver = (req, ctx) => req.getHeader("karate-name")
 
+    // Pre-generate the user records before the simulation starts, so they are not generated inside the measured
+    // scenario, and feed one to each virtual user (as __gatling.user), starting again from the first when exhausted
+    val usersFile = Paths.get(System.getProperty("apitest.fakedata.records", FakeDataRecords.DEFAULT_FILE))
+    val users = new FakeDataFeeder(FakeDataRecords.ensure(usersFile, vUsers), "user")
+    val userFeeder: Iterator[Map[String, Any]] = users.asScala.map(_.asScala.toMap)
+
     // Define Scenarios
-    val performanceTest: ScenarioBuilder = scenario("posts").exec(karateFeature("classpath:features/api-users/users.feature", "@POST"))
+    val performanceTest: ScenarioBuilder = scenario("posts")
+        .feed(userFeeder)
+        .exec(karateFeature("classpath:features/api-users/users.feature", "@POST"))
     
     setUp(
         performanceTest.inject(
@@ -43,41 +43,9 @@ Feature: Test /users API
   @POST
   Scenario: [CNNNNN] - Add a new user
     Given url jsonPlaceHolderUrl
-    # http://dius.github.io/java-faker/apidocs/com/github/javafaker/Name.html
-    # https://dius.github.io/java-faker/apidocs/com/github/javafaker/Address.html
-    # https://dius.github.io/java-faker/apidocs/com/github/javafaker/Internet.html
-    # http://dius.github.io/java-faker/apidocs/com/github/javafaker/PhoneNumber.html
-    # http://dius.github.io/java-faker/apidocs/com/github/javafaker/Company.html
-    And def name = fakeData.name()
-    And def address = fakeData.address()
-    And def internet = fakeData.internet()
-    And def phoneNumber = fakeData.phoneNumber()
-    And def company = fakeData.company()
-    And def values =
-    """
-      {
-        "name": '#(name.fullName())',
-        "username": '#(name.username())',
-        "email": '#(internet.emailAddress())',
-        "address": {
-          "street": '#(address.streetAddress())',
-          "suite": "Penthouse",
-          "city": '#(address.city())',
-          "zipcode": '#(address.zipCode())',
-          "geo": {
-            "lat": '#(address.latitude())',
-            "lng": '#(address.longitude())'
-          }
-        },
-        "phone": '#(phoneNumber.cellPhone())',
-        "website": '#(company.url())',
-        "company": {
-          "name": '#(company.name())',
-          "catchPhrase": '#(company.catchPhrase())',
-          "bs": '#(company.bs())'
-        }
-      }
-    """
+    # User record (see utils.util.FakeDataRecords): fed by Gatling, read from the file set by
+    # apitest.fakedata.records, or generated using fakeData
+    And json values = nextUser()
     And path '/users'
     And request values
     When method POST
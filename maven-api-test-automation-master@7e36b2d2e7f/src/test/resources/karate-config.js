@@ -13,22 +13,25 @@ function() {
 
     var Support = Java.type('utils.util.Support');
 
+    // Settings are resolved once per JVM rather than for every scenario
+    var settings = Support.getSettings();
+
     // Setup Karate proxy settings if configured
-    var proxyUri = Support.getProperty('apitest.configure.proxy.uri');
+    var proxyUri = settings.getProxyUri();
     var proxy;
     if (proxyUri) {
         proxy = {
             uri: proxyUri
         };
 
-        var username = Support.getProperty('apitest.configure.proxy.username');
-        var password = Support.getProperty('apitest.configure.proxy.password');
+        var username = settings.getProxyUsername();
+        var password = settings.getProxyPassword();
         if (username && (password || password === '')) {
             proxy.username = username;
             proxy.password = password;
         }
 
-        var nonProxyHosts = Support.getPropertyList('apitest.configure.proxy.non.proxy.hosts');
+        var nonProxyHosts = settings.getProxyNonProxyHosts();
         if (nonProxyHosts && nonProxyHosts.length > 0) {
             proxy.nonProxyHosts = nonProxyHosts;
         }
@@ -47,37 +50,51 @@ function() {
 
     // Enable HTTPS calls without needing to configure a trusted certificate or key-store.
     // See https://github.com/intuit/karate#configure for more information
-    karate.configure('ssl', Support.getProperty('apitest.configure.ssl', true));
+    karate.configure('ssl', settings.isSsl());
 
     // Configure connection value - allow seconds or milliseconds to be specified
-    var connectionTimeoutSeconds = Support.getProperty('apitest.configure.connection.timeout.seconds', 0);
-    var connectionTimeoutMilliseconds = Support.getProperty('apitest.configure.connection.timeout.milliseconds', connectionTimeoutSeconds * 1000);
+    var connectionTimeoutMilliseconds = settings.getConnectionTimeoutMilliseconds();
     if (connectionTimeoutMilliseconds > 0) {
         karate.log('Connection timeout (milliseconds): ' + connectionTimeoutMilliseconds);
         karate.configure('connectTimeout', connectionTimeoutMilliseconds);
     }
 
     // Read timeout value - allow seconds or milliseconds to be specified
-    var readTimeoutSeconds = Support.getProperty('apitest.configure.read.timeout.seconds', 0);
-    var readTimeoutMilliseconds = Support.getProperty('apitest.configure.read.timeout.milliseconds', readTimeoutSeconds * 1000);
+    var readTimeoutMilliseconds = settings.getReadTimeoutMilliseconds();
     if (readTimeoutMilliseconds > 0) {
         karate.log('Read timeout (Milliseconds): ' + readTimeoutMilliseconds);
         karate.configure('readTimeout', readTimeoutMilliseconds);
     }
 
     // Ensure request and responses are logged as pretty
-    karate.configure('logPrettyRequest', Support.getProperty('apitest.configure.logPrettyRequest', true));
-    karate.configure('logPrettyResponse', Support.getProperty('apitest.configure.logPrettyResponse', true));
+    karate.configure('logPrettyRequest', settings.isLogPrettyRequest());
+    karate.configure('logPrettyResponse', settings.isLogPrettyResponse());
 
     // Configure log modifier - which prevents sensitive information being logged
     var LM = Java.type('runner.LogModifier');
     karate.configure('logModifier', LM.instance);
 
-    var FakeData = Java.type('utils.util.FakeData');
+    // Reuse the FakeData of this thread rather than parsing the locale files for every scenario. When
+    // apitest.fakedata.seed is set it is reseeded for this scenario (and Examples row, see FakeDataHook), so its
+    // values can be reproduced.
+    var FakeDataProvider = Java.type('utils.util.FakeDataProvider');
+    var fakeData = FakeDataProvider.forScenario(karate.info.featureFileName + ':' + karate.info.scenarioName);
+
+    // User records are fed by Gatling, or read from apitest.fakedata.records when set, so load tests do not generate
+    // them inside the measured scenario. Otherwise a record is generated using fakeData.
+    var nextUser = function() {
+        var gatling = karate.get('__gatling');
+        if (gatling && gatling.user) {
+            return gatling.user;
+        }
+        return Java.type('utils.util.FakeDataFeeder').nextUser(karate.get('fakeData'));
+    };
 
     // Setup common configuration information
     return {
-        fakeData: new FakeData(),
-        Support: Support
+        fakeData: fakeData,
+        nextUser: nextUser,
+        Support: Support,
+        settings: settings
     };
 }